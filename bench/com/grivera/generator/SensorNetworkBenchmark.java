@@ -0,0 +1,243 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.generator.sensors.StorageNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of generating, querying, saving and loading a Sensor Network.
+ *
+ * <p>
+ * </p>
+ *
+ * Every benchmark runs on a connected network of N nodes whose transmission
+ * range is chosen so that each node has about <i>degree</i> neighbors on average.
+ * Run {@link #main(String[])} to save the results as JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorNetworkBenchmark {
+
+    private static final double WIDTH = 1000;
+    private static final double LENGTH = 1000;
+    private static final int PACKETS = 5;
+    private static final int CAPACITY = 10;
+    private static final int MIN_VALUE = 1000;
+    private static final int MAX_VALUE = 10000;
+
+    /* Number of DN -> SN pairs the query benchmarks cycle through */
+    private static final int PAIRS = 64;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int nodeCount;
+
+    /* Expected number of neighbors of each node */
+    @Param({"8", "32"})
+    public int degree;
+
+    private double tr;
+    private int dataNodeCount, storageNodeCount;
+
+    private SensorNetwork network;
+    private DataNode[] from;
+    private StorageNode[] to;
+    private int pair;
+
+    private Path directory;
+    private String snFile, snbFile, inpFile;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        /* Every benchmark that saves a file prints a message, which would flood the results */
+        this.stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        this.tr = Math.sqrt(this.degree * WIDTH * LENGTH / (Math.PI * this.nodeCount));
+        this.dataNodeCount = Math.min(this.nodeCount / 10, 200);
+        this.storageNodeCount = Math.min(this.nodeCount / 10, 200);
+        this.network = this.generate();
+
+        Random rand = new Random(0);
+        List<DataNode> dNodes = this.network.getDataNodes();
+        List<StorageNode> sNodes = this.network.getStorageNodes();
+        this.from = new DataNode[PAIRS];
+        this.to = new StorageNode[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            this.from[i] = dNodes.get(rand.nextInt(dNodes.size()));
+            this.to[i] = sNodes.get(rand.nextInt(sNodes.size()));
+        }
+
+        this.directory = Files.createTempDirectory("sensor-network-bench");
+        this.snFile = this.directory.resolve("network.sn").toString();
+        this.snbFile = this.directory.resolve("network.snb").toString();
+        this.inpFile = this.directory.resolve("network.inp").toString();
+        this.network.save(this.snFile);
+        this.network.saveBinary(this.snbFile, true, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(this.stdout);
+        for (File file : this.directory.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(this.directory);
+    }
+
+    private SensorNetwork generate() {
+        return SensorNetwork.of(WIDTH, LENGTH, this.nodeCount, this.tr, this.dataNodeCount, PACKETS,
+                this.storageNodeCount, CAPACITY, MIN_VALUE, MAX_VALUE, GenerationMode.CONNECTED);
+    }
+
+    private int nextPair() {
+        this.pair = (this.pair + 1) % PAIRS;
+        return this.pair;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SensorNetwork generateConnected() {
+        return this.generate();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int initGraph() {
+        return this.network.initGraph(this.network.getSensorNodes(), false).getArcCount();
+    }
+
+    @Benchmark
+    public boolean isConnected() {
+        return this.network.isConnected();
+    }
+
+    @Benchmark
+    public List<SensorNode> getMinCostPath() {
+        int i = this.nextPair();
+        return this.network.getMinCostPath(this.from[i], this.to[i]);
+    }
+
+    @Benchmark
+    public int calculateMinCostCold() {
+        int i = this.nextPair();
+        this.network.clearCostCaches();
+        return this.network.calculateMinCost(this.from[i], this.to[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int calculateMinCostWarm() {
+        int i = this.nextPair();
+        return this.network.calculateMinCost(this.from[i], this.to[i]);
+    }
+
+    /**
+     * Represents the priority queue of the min-cost searches, so only the
+     * benchmarks that take it run once per engine.
+     */
+    @State(Scope.Benchmark)
+    public static class Engine {
+        @Param({"HEAP", "BUCKET"})
+        public PathEngine engine;
+    }
+
+    @Benchmark
+    public List<SensorNode> getMinCostPathWith(Engine engine) {
+        int i = this.nextPair();
+        this.network.setPathEngine(engine.engine);
+        this.network.setGoalDirectedQueries(false);
+        return this.network.getMinCostPath(this.from[i], this.to[i]);
+    }
+
+    @Benchmark
+    public List<SensorNode> getMinCostPathAStar(Engine engine) {
+        int i = this.nextPair();
+        this.network.setPathEngine(engine.engine);
+        this.network.setGoalDirectedQueries(true);
+        return this.network.getMinCostPath(this.from[i], this.to[i]);
+    }
+
+    @Benchmark
+    public List<SensorNode> getMinCostPathHierarchy() {
+        /* Every benchmark runs in its own fork, so the hierarchy is built once, during the warmup */
+        if (this.network.getContractionStats().isEmpty()) {
+            this.stdout.println(this.network.buildContractionHierarchy());
+        }
+        int i = this.nextPair();
+        return this.network.getMinCostPath(this.from[i], this.to[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int[][] getCostMatrix(Engine engine) {
+        this.network.setPathEngine(engine.engine);
+        this.network.clearCostCaches();
+        return this.network.getCostMatrix();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void saveAsCsInp() {
+        this.network.saveAsCsInp(this.inpFile);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void save() {
+        this.network.save(this.snFile);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SensorNetwork from() {
+        return SensorNetwork.from(this.snFile);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SensorNetwork fromBinary() {
+        return SensorNetwork.from(this.snbFile);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CompactSensorNetwork mapOffHeap() {
+        return CompactSensorNetwork.map(this.snbFile);
+    }
+
+    /**
+     * Runs the benchmarks and saves the results in jmh-result.json.
+     *
+     * @param args an optional regular expression of the benchmarks to run (e.g. "getMinCostPath")
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SensorNetworkBenchmark.class.getSimpleName() + "." + (args.length > 0 ? args[0] : ""))
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -50,6 +50,7 @@ public class SensorToFlowNetworkMain extends Application {
         System.out.printf("Network is feasible: %b\n", network.isFeasible());
 
         network.saveAsCsInp("output_sensor_flow_diagram.inp");
+        System.out.printf("Max total profit: %d micro J\n", network.solveMaxProfit().getTotalProfit());
         guiGraph = new SensorNetworkGraph(network, guiWidth, guiHeight);
 
         Thread t = new Thread(() -> highlightPath(network));
@@ -0,0 +1,855 @@
+package com.grivera.generator;
+
+import com.grivera.generator.flow.ArcPruning;
+import com.grivera.generator.flow.FlowSolution;
+import com.grivera.generator.flow.MaxProfitFlow;
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.generator.sensors.StorageNode;
+import com.grivera.generator.sensors.TransitionNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * An implementation of a Network that stores its nodes as columns of primitive
+ * arrays (struct of arrays) instead of one SensorNode object per node, so
+ * networks of millions of nodes fit in a normal heap.
+ *
+ * <p>
+ * </p>
+ *
+ * Each node costs a few dozen bytes (its coordinates, type, packet value, ID and
+ * its arcs in the CSR graph). The columns and the graph are kept on the heap, or
+ * off the heap by {@link #map(String)} so very large networks don't add to the
+ * work of the garbage collector. The SensorNode objects returned by this network are
+ * flyweight views created on demand: two views of the same node are equal but not
+ * the same object, and the packets left in a Data Node and the space used in a
+ * Storage Node are read from and written to the network, so every view of a node
+ * sees the same packets.
+ *
+ * @see Network
+ * @see SensorNetwork
+ */
+public class CompactSensorNetwork implements Network {
+
+    private final double width, length;
+    private final double transmissionRange;
+    private int dataPacketCount;
+    private int storageCapacity;
+
+    /* Node columns, indexed by UUID - 1 (either heap or direct buffers) */
+    private final int nodeCount;
+    private final ByteBuffer types;
+    private final DoubleBuffer xs, ys;
+    private final IntBuffer values;
+    private final IntBuffer ids;
+    private final boolean offHeap;
+
+    /* The UUID - 1 of each node of a type, indexed by ID - 1 */
+    private final int[] dIndices, sIndices;
+    private final IntBuffer tIndices;
+
+    /* Packet state, indexed by DN ID - 1 and SN ID - 1 */
+    private final int[] packetsLeft;
+    private final int[] usedSpace;
+
+    private CsrGraph graph;
+    private PathCosts costs;
+
+    /* Null until known, for graphs loaded from a file */
+    private Boolean connected;
+
+    /* Null if the network was loaded from a file that doesn't record its generation */
+    private Generation generation;
+
+    private CompactSensorNetwork(double width, double length, double transmissionRange, int dataPacketCount,
+                                 int storageCapacity, NodeColumns columns) {
+        this(width, length, transmissionRange, dataPacketCount, storageCapacity, ByteBuffer.wrap(columns.types),
+                DoubleBuffer.wrap(columns.xs), DoubleBuffer.wrap(columns.ys), IntBuffer.wrap(columns.values), false);
+    }
+
+    private CompactSensorNetwork(double width, double length, double transmissionRange, int dataPacketCount,
+                                 int storageCapacity, ByteBuffer types, DoubleBuffer xs, DoubleBuffer ys,
+                                 IntBuffer values, boolean offHeap) {
+        this.width = width;
+        this.length = length;
+        this.transmissionRange = transmissionRange;
+        this.dataPacketCount = dataPacketCount;
+        this.storageCapacity = storageCapacity;
+
+        this.nodeCount = types.limit();
+        this.types = types;
+        this.xs = xs;
+        this.ys = ys;
+        this.values = values;
+        this.offHeap = offHeap;
+
+        final int N = this.nodeCount;
+        int p = 0, s = 0;
+        for (int index = 0; index < N; index++) {
+            if (types.get(index) == NodeColumns.DATA) {
+                p++;
+            } else if (types.get(index) == NodeColumns.STORAGE) {
+                s++;
+            }
+        }
+
+        this.ids = offHeap ? CsrGraph.allocateDirect(N) : IntBuffer.allocate(N);
+        this.dIndices = new int[p];
+        this.sIndices = new int[s];
+        this.tIndices = offHeap ? CsrGraph.allocateDirect(N - p - s) : IntBuffer.allocate(N - p - s);
+        int d = 0, st = 0, t = 0;
+        for (int index = 0; index < N; index++) {
+            switch (types.get(index)) {
+                case NodeColumns.DATA -> {
+                    this.dIndices[d++] = index;
+                    this.ids.put(index, d);
+                }
+                case NodeColumns.STORAGE -> {
+                    this.sIndices[st++] = index;
+                    this.ids.put(index, st);
+                }
+                default -> {
+                    this.tIndices.put(t++, index);
+                    this.ids.put(index, t);
+                }
+            }
+        }
+
+        this.packetsLeft = new int[p];
+        this.usedSpace = new int[s];
+        Arrays.fill(this.packetsLeft, dataPacketCount);
+    }
+
+    /**
+     * Wrapped constructor to create a Compact Sensor Network
+     *
+     * @param x  the width of the network (in meters)
+     * @param y  the length of the network (in meters)
+     * @param N  the number of nodes
+     * @param tr the transmission range of the nodes (in meters)
+     * @param p  the number of Data Nodes in the network
+     * @param q  the number of data packets each Data Node has
+     * @param s  the number of Storage Nodes in the network
+     * @param m  the storage capacity each Storage nodes has
+     * @param Vl the minimum value of a data packet (inclusive)
+     * @param Vh the maximum value of a data packet (inclusive)
+     */
+    public static CompactSensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m,
+                                          int Vl, int Vh) {
+        return of(x, y, N, tr, p, q, s, m, Vl, Vh, GenerationMode.REJECTION);
+    }
+
+    /**
+     * Wrapped constructor to create a connected Compact Sensor Network
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed (CONNECTED never needs a second attempt)
+     */
+    public static CompactSensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m,
+                                          int Vl, int Vh, GenerationMode mode) {
+        return of(x, y, N, tr, p, q, s, m, Vl, Vh, mode, Generation.randomSeed());
+    }
+
+    /**
+     * Wrapped constructor to create a connected Compact Sensor Network from a seed,
+     * which is the same network {@link SensorNetwork#of(double, double, int, double, int, int, int, int, int, int, GenerationMode, long)}
+     * returns for the same seed and parameters.
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed (CONNECTED never needs a second attempt)
+     * @param seed the seed that the seed of every candidate network is drawn from
+     */
+    public static CompactSensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m,
+                                          int Vl, int Vh, GenerationMode mode, long seed) {
+        return Generation.requireConnected(generate(x, y, N, tr, p, q, s, m, Vl, Vh, mode, seed), N * 1000);
+    }
+
+    /**
+     * Generates candidate networks until one is connected, without exiting the program
+     * when that fails. The seed of each candidate is drawn in order from one seed.
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed
+     * @param seed the seed that the seed of every candidate is drawn from
+     * @return the first candidate that is connected or infeasible (in LARGEST_COMPONENT mode, only if the
+     * parameters are infeasible), or null if none is within N * 1000 + 1 tries
+     */
+    static CompactSensorNetwork generate(double x, double y, int N, double tr, int p, int q, int s, int m,
+                                         int Vl, int Vh, GenerationMode mode, long seed) {
+        if (p + s > N) throw new IllegalArgumentException("Invalid CompactSensorNetwork parameters");
+
+        return Generation.firstConnected(N, p, q, m, mode, seed, candidateSeed -> {
+            Generation generation = new Generation(candidateSeed, Vl, Vh, mode, N, p, s);
+            CompactSensorNetwork network;
+            Metrics.Timer timer = Metrics.start(Metrics.Phase.GENERATION);
+            try {
+                network = new CompactSensorNetwork(x, y, tr, q, m, generation.generate(x, y, tr));
+            } finally {
+                Metrics.stop(timer);
+            }
+            network.generation = generation;
+
+            /* Infeasible candidates are kept whole so the caller can report them */
+            CsrGraph graph = network.initGraph(network.isFeasible());
+            if (graph != null) {
+                network.setGraph(graph);
+            }
+            return network;
+        });
+    }
+
+    /**
+     * Wrapped copy constructor to create a Compact Sensor Network from an .sn
+     * (or .snb) file, in the same formats {@link SensorNetwork#from(String)} reads.
+     *
+     * @param fileName the path to the .sn (or .snb) file
+     */
+    public static CompactSensorNetwork from(String fileName) {
+        NetworkFile file = NetworkFile.read(fileName);
+        CompactSensorNetwork network = new CompactSensorNetwork(file.width, file.length, file.transmissionRange,
+                file.dataPacketCount, file.storageCapacity, file.nodes);
+        network.generation = file.generation;
+        network.initSaved(file.graph, file.costMatrix, file.bitsPerPacket);
+        return network;
+    }
+
+    /**
+     * Wrapped copy constructor to create a Compact Sensor Network whose node
+     * columns, graph and edge costs are kept off the heap.
+     *
+     * <p>
+     * </p>
+     *
+     * An .snb file is mapped straight into memory, so the columns (and the graph,
+     * if it was saved with the current bits per packet) are read from the file
+     * as they are needed instead of being parsed up front. Any other file is
+     * parsed and then copied into direct buffers.
+     *
+     * @param fileName the path to the .snb (or .sn) file
+     */
+    public static CompactSensorNetwork map(String fileName) {
+        if (!fileName.endsWith(NetworkFile.BINARY_EXTENSION)) {
+            NetworkFile file = NetworkFile.read(fileName);
+            NodeColumns nodes = file.nodes;
+            CompactSensorNetwork network = new CompactSensorNetwork(file.width, file.length,
+                    file.transmissionRange, file.dataPacketCount, file.storageCapacity,
+                    ByteBuffer.allocateDirect(nodes.size()).put(nodes.types).flip(),
+                    allocateDoubles(nodes.size()).put(nodes.xs).flip(),
+                    allocateDoubles(nodes.size()).put(nodes.ys).flip(),
+                    CsrGraph.allocateDirect(nodes.size()).put(nodes.values).flip(), true);
+            network.generation = file.generation;
+            network.initSaved(file.graph, file.costMatrix, file.bitsPerPacket);
+            return network;
+        }
+
+        File file = new File(fileName);
+        if (!file.exists()) {
+            throw new IllegalArgumentException(String.format("File \"%s\" doesn't exist!", fileName));
+        }
+        try {
+            NetworkFile.Mapped mapped = NetworkFile.map(file.toPath());
+            CompactSensorNetwork network = new CompactSensorNetwork(mapped.width, mapped.length,
+                    mapped.transmissionRange, mapped.dataPacketCount, mapped.storageCapacity,
+                    mapped.types, mapped.xs, mapped.ys, mapped.values, true);
+            network.generation = mapped.generation;
+            network.initSaved(mapped.graph, mapped.costMatrix, mapped.bitsPerPacket);
+            return network;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid file provided: " + e.getMessage());
+        }
+    }
+
+    private static DoubleBuffer allocateDoubles(int size) {
+        return ByteBuffer.allocateDirect(size * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    /**
+     * Uses the graph and cost matrix of a saved network if they were saved with
+     * the current bits per packet, re-building or re-weighting the graph otherwise.
+     *
+     * @param graph         the saved graph, or null
+     * @param costMatrix    the saved cost matrix, or null
+     * @param bitsPerPacket the bits per packet the costs were calculated with
+     */
+    private void initSaved(CsrGraph graph, int[][] costMatrix, int bitsPerPacket) {
+        /* Saved costs are only valid for the bits per packet they were calculated with */
+        boolean costsValid = bitsPerPacket == SensorNode.getBitsPerPacket();
+        if (graph == null) {
+            this.setGraph(this.initGraph(false));
+        } else if (graph.getNodeCount() != this.nodeCount) {
+            throw new IllegalArgumentException("Invalid file provided: The graph doesn't match the nodes");
+        } else {
+            graph = this.offHeap ? graph.toDirect() : graph.toHeap();
+            this.setGraph(costsValid ? graph : graph.withWeights(this::getCost));
+        }
+
+        if (costsValid && costMatrix != null && costMatrix.length == this.getDataNodeCount()
+                && (costMatrix.length == 0 || costMatrix[0].length == this.getStorageNodeCount())) {
+            this.costs.setCostMatrix(costMatrix);
+        }
+    }
+
+    /**
+     * Wrapped copy constructor to create a Compact Sensor Network from an .sn
+     * (or .snb) file with new overflow packet and storage capacity counts.
+     *
+     * @param fileName        the path to the .sn (or .snb) file
+     * @param overflowPackets the number of packets each Data Node has
+     * @param storageCapacity the number of storage spaces each Storage Node has
+     */
+    public static CompactSensorNetwork from(String fileName, int overflowPackets, int storageCapacity) {
+        CompactSensorNetwork sn = from(fileName);
+        sn.setOverflowPackets(overflowPackets);
+        sn.setStorageCapacity(storageCapacity);
+        return sn;
+    }
+
+    /**
+     * Builds the adjacency graph of the nodes, tracking whether they are connected
+     * while the edges are found.
+     *
+     * @param stopIfDisconnected true to give up as soon as the nodes can no longer be connected
+     * @return the graph, or null if it was given up on
+     */
+    private CsrGraph initGraph(boolean stopIfDisconnected) {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.GRAPH_BUILD);
+        try {
+            final double tr = this.transmissionRange;
+
+            /* Create the adjacency graph, only checking nodes in the surrounding cells */
+            GraphSweep sweep = GraphSweep.run(this.width, this.length, tr + 0.0001, this.nodeCount,
+                    this.xs::get, this.ys::get,
+                    (index1, index2) -> SensorNode.inRange(this.xs.get(index1), this.ys.get(index1), tr,
+                            this.xs.get(index2), this.ys.get(index2), tr),
+                    stopIfDisconnected);
+            this.connected = sweep.isConnected();
+            if (sweep.isStopped()) {
+                return null;
+            }
+
+            CsrGraph built = sweep.getGraph().build(this::getCost);
+            return this.offHeap ? built.toDirect() : built;
+        } finally {
+            Metrics.stop(timer);
+        }
+    }
+
+    /* The graph's weights must match the current cost model */
+    private void setGraph(CsrGraph graph) {
+        this.graph = graph;
+        this.costs = new PathCosts(graph, this::getCost, this.xs::get, this.ys::get, this.dIndices, this.sIndices);
+    }
+
+    /* Same cost as SensorNode.calculateTransmissionCost() + calculateReceivingCost(), without the objects */
+    private int getCost(int from, int to) {
+        double dx = this.xs.get(from) - this.xs.get(to);
+        double dy = this.ys.get(from) - this.ys.get(to);
+        return SensorNode.getTransmissionCost(Math.sqrt(dx * dx + dy * dy)) + SensorNode.getReceivingCost();
+    }
+
+    private SensorNode nodeAt(int index) {
+        return switch (this.types.get(index)) {
+            case NodeColumns.DATA -> new DataView(index);
+            case NodeColumns.STORAGE -> new StorageView(index);
+            default -> new TransitionNode(index + 1, this.ids.get(index), this.xs.get(index), this.ys.get(index),
+                    this.transmissionRange);
+        };
+    }
+
+    private static <T> List<T> listOf(int size, IntFunction<T> get) {
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                return get.apply(Objects.checkIndex(index, size));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public double getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public double getLength() {
+        return this.length;
+    }
+
+    @Override
+    public int getDataPacketCount() {
+        return this.dataPacketCount;
+    }
+
+    @Override
+    public int getStorageCapacity() {
+        return this.storageCapacity;
+    }
+
+    @Override
+    public OptionalLong getSeed() {
+        return this.generation == null ? OptionalLong.empty() : OptionalLong.of(this.generation.seed);
+    }
+
+    @Override
+    public List<SensorNode> getSensorNodes() {
+        return listOf(this.nodeCount, this::nodeAt);
+    }
+
+    @Override
+    public int getSensorNodeCount() {
+        return this.nodeCount;
+    }
+
+    @Override
+    public List<DataNode> getDataNodes() {
+        return listOf(this.dIndices.length, id -> new DataView(this.dIndices[id]));
+    }
+
+    @Override
+    public int getDataNodeCount() {
+        return this.dIndices.length;
+    }
+
+    @Override
+    public List<StorageNode> getStorageNodes() {
+        return listOf(this.sIndices.length, id -> new StorageView(this.sIndices[id]));
+    }
+
+    @Override
+    public int getStorageNodeCount() {
+        return this.sIndices.length;
+    }
+
+    @Override
+    public List<TransitionNode> getTransitionNodes() {
+        return listOf(this.tIndices.limit(), id -> (TransitionNode) this.nodeAt(this.tIndices.get(id)));
+    }
+
+    @Override
+    public int getTransitionNodeCount() {
+        return this.tIndices.limit();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isConnected() {
+        /* Graphs built by this network know it already, so only loaded graphs are checked */
+        if (this.connected == null) {
+            Metrics.Timer timer = Metrics.start(Metrics.Phase.CONNECTIVITY_CHECK);
+            try {
+                this.connected = GraphSweep.isConnected(this.graph);
+            } finally {
+                Metrics.stop(timer);
+            }
+        }
+        return this.connected;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFeasible() {
+        int p = this.dIndices.length;
+        return p * this.dataPacketCount <= (this.nodeCount - p) * this.storageCapacity;
+    }
+
+    @Override
+    public Map<SensorNode, Set<SensorNode>> getAdjacencyList() {
+        return new GraphView(this.graph, this::nodeAt).getAdjacencyList();
+    }
+
+    public Set<SensorNode> getNeighbors(SensorNode node) {
+        return new GraphView(this.graph, this::nodeAt).getNeighbors(node);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * </p>
+     *
+     * Min-cost queries may run concurrently from several threads.
+     */
+    @Override
+    public int calculateMinCost(SensorNode from, SensorNode to) {
+        return this.costs.minCost(from.getUuid() - 1, to.getUuid() - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SensorNode> getMinCostPath(SensorNode from, SensorNode to) {
+        int[] indices = this.costs.minCostPath(from.getUuid() - 1, to.getUuid() - 1);
+        List<SensorNode> path = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            path.add(this.nodeAt(index));
+        }
+        return path;
+    }
+
+    /**
+     * Limits how many min-costs {@link #calculateMinCost(SensorNode, SensorNode)} remembers
+     * (besides the DN -> SN cost matrix), forgetting the oldest ones first.
+     *
+     * @param maxSize the maximum number of cached min-costs, or 0 for no limit
+     */
+    public void setCostCacheSize(int maxSize) {
+        this.costs.setCacheSize(maxSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setPathEngine(PathEngine engine) {
+        this.costs.setEngine(engine);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PathEngine getPathEngine() {
+        return this.costs.getEngine();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setGoalDirectedQueries(boolean goalDirected) {
+        this.costs.setGoalDirected(goalDirected);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasGoalDirectedQueries() {
+        return this.costs.isGoalDirected();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ContractionStats buildContractionHierarchy() {
+        return this.costs.buildHierarchy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ContractionStats> getContractionStats() {
+        return this.costs.getHierarchyStats();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearContractionHierarchy() {
+        this.costs.clearHierarchy();
+    }
+
+    /**
+     * Forgets every cached min-cost, so the next queries have to search again.
+     */
+    void clearCostCaches() {
+        this.costs.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[][] getCostMatrix() {
+        int[][] matrix = this.costs.getCostMatrix();
+        int[][] copy = new int[matrix.length][];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int calculateCostOfPath(List<SensorNode> path) {
+        int currCost = 0;
+        for (int i = 0; i < path.size() - 1; i++) {
+            currCost += path.get(i).calculateTransmissionCost(path.get(i + 1))
+                    + path.get(i + 1).calculateReceivingCost();
+        }
+        return currCost;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(String fileName) {
+        if (fileName.endsWith(NetworkFile.BINARY_EXTENSION)) {
+            this.saveBinary(fileName, true, this.costs.getCostMatrixIfPresent() != null);
+            return;
+        }
+
+        try {
+            this.toFile(null, null).writeText(new File(fileName).toPath());
+            System.out.printf("Saved sensor network in file \"%s\"!\n", fileName);
+        } catch (IOException e) {
+            System.out.printf("ERROR: Failed to create \"%s\"!\n", fileName);
+        }
+    }
+
+    /**
+     * Saves the network into the binary .snb file format, which stores the nodes
+     * as columns and can be loaded back with {@link #from(String)} without
+     * parsing text.
+     *
+     * @param fileName          the path to the file to save to
+     * @param includeGraph      true to also save the adjacency graph, so loading doesn't rebuild it
+     * @param includeCostMatrix true to also save the DN -> SN cost matrix (calculating it if needed)
+     */
+    public void saveBinary(String fileName, boolean includeGraph, boolean includeCostMatrix) {
+        try {
+            this.toFile(includeGraph ? this.costs.getGraph() : null, includeCostMatrix ? this.costs.getCostMatrix() : null)
+                    .writeBinary(new File(fileName).toPath());
+            System.out.printf("Saved sensor network in file \"%s\"!\n", fileName);
+        } catch (IOException e) {
+            System.out.printf("ERROR: Failed to create \"%s\"!\n", fileName);
+        }
+    }
+
+    private NetworkFile toFile(CsrGraph graph, int[][] costMatrix) {
+        return new NetworkFile(this.width, this.length, this.transmissionRange, this.dataPacketCount,
+                this.storageCapacity, SensorNode.getBitsPerPacket(),
+                new NodeColumns(toArray(this.types), toArray(this.xs), toArray(this.ys), toArray(this.values)),
+                this.generation, graph, costMatrix);
+    }
+
+    /* Saving needs the columns as arrays, which heap buffers already are */
+    private static byte[] toArray(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.limit()) {
+            return buffer.array();
+        }
+        byte[] values = new byte[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    private static double[] toArray(DoubleBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.limit()) {
+            return buffer.array();
+        }
+        double[] values = new double[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.limit()) {
+            return buffer.array();
+        }
+        int[] values = new int[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAsCsInp(String fileName) {
+        this.saveAsCsInp(fileName, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAsCsInp(String fileName, boolean includeComments) {
+        /* Find all paths from DN# -> SN# before creating the file */
+        DimacsWriter.save(this, this.costs.getCostMatrix(), fileName, includeComments);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAsCsInp(String fileName, boolean includeComments, ArcPruning pruning) {
+        DimacsWriter.save(this, this.costs.getCostMatrix(), fileName, includeComments, pruning);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FlowSolution solveMaxProfit() {
+        return MaxProfitFlow.of(this).solve();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FlowSolution solveMaxProfit(ArcPruning pruning) {
+        return MaxProfitFlow.of(this).solve(pruning);
+    }
+
+    @Override
+    public void setOverflowPackets(int overflowPackets) {
+        this.dataPacketCount = overflowPackets;
+        Arrays.fill(this.packetsLeft, overflowPackets);
+    }
+
+    @Override
+    public void setStorageCapacity(int storageCapacity) {
+        this.storageCapacity = storageCapacity;
+        Arrays.fill(this.usedSpace, 0);
+    }
+
+    @Override
+    public boolean canSendPackets(DataNode dn, StorageNode sn, int packets) {
+        return dn.canRemovePackets(packets) && sn.canStore(packets);
+    }
+
+    @Override
+    public void sendPackets(DataNode dn, StorageNode sn, int packets) {
+        if (!this.canSendPackets(dn, sn, packets)) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot send from %s (%d/%d packets left) -> %s (%d/%d space left)\n",
+                            dn.getName(), dn.getPacketsLeft(), this.dataPacketCount,
+                            sn.getName(), sn.getSpaceLeft(), this.storageCapacity));
+        }
+
+        dn.removePackets(packets);
+        sn.storePackets(packets);
+    }
+
+    @Override
+    public void resetPackets() {
+        Arrays.fill(this.packetsLeft, this.dataPacketCount);
+        Arrays.fill(this.usedSpace, 0);
+    }
+
+    @Override
+    public int calculateProfitOf(DataNode from, StorageNode to) {
+        int cost = this.calculateMinCost(from, to);
+        return from.getOverflowPacketValue() - cost;
+    }
+
+    @Override
+    public SensorNode getSensorNodeByUuid(int uuid) {
+        return this.nodeAt(Objects.checkIndex(uuid - 1, this.nodeCount));
+    }
+
+    @Override
+    public DataNode getDataNodeById(int id) {
+        if (id < 1 || id > this.getDataNodeCount()) {
+            throw new IndexOutOfBoundsException(String.format("Invalid DN ID %d", id));
+        }
+        return new DataView(this.dIndices[id - 1]);
+    }
+
+    @Override
+    public StorageNode getStorageNodeById(int id) {
+        if (id < 1 || id > this.getStorageNodeCount()) {
+            throw new IndexOutOfBoundsException(String.format("Invalid SN ID %d", id));
+        }
+        return new StorageView(this.sIndices[id - 1]);
+    }
+
+    @Override
+    public TransitionNode getTransitionNodeById(int id) {
+        if (id < 1 || id > this.getTransitionNodeCount()) {
+            throw new IndexOutOfBoundsException(String.format("Invalid TN ID %d", id));
+        }
+        return (TransitionNode) this.nodeAt(this.tIndices.get(id - 1));
+    }
+
+    /**
+     * Represents a Data Node whose packets left are kept by the network.
+     */
+    private final class DataView extends DataNode {
+        private DataView(int index) {
+            super(index + 1, ids.get(index), xs.get(index), ys.get(index), transmissionRange, dataPacketCount,
+                    values.get(index));
+        }
+
+        @Override
+        public int getPacketsLeft() {
+            return packetsLeft[this.getId() - 1];
+        }
+
+        @Override
+        protected void setPacketsLeft(int packets) {
+            packetsLeft[this.getId() - 1] = packets;
+        }
+    }
+
+    /**
+     * Represents a Storage Node whose used space is kept by the network.
+     */
+    private final class StorageView extends StorageNode {
+        private StorageView(int index) {
+            super(index + 1, ids.get(index), xs.get(index), ys.get(index), transmissionRange, storageCapacity);
+        }
+
+        @Override
+        public int getUsedSpace() {
+            return usedSpace[this.getId() - 1];
+        }
+
+        @Override
+        protected void setUsedSpace(int packets) {
+            usedSpace[this.getId() - 1] = packets;
+        }
+    }
+}
@@ -0,0 +1,581 @@
+package com.grivera.generator;
+
+import com.grivera.util.IndexedIntHeap;
+
+import java.util.Arrays;
+
+/**
+ * Represents a contraction hierarchy over a weighted graph, which answers
+ * min-cost queries between two nodes by searching only a few hundred nodes
+ * however large the graph is.
+ *
+ * <p>
+ * </p>
+ *
+ * The nodes are contracted one at a time, least important first (mostly by how
+ * many arcs contracting them would add, minus how many it removes). Contracting a
+ * node removes it from the graph and, for every pair of its neighbors whose
+ * only min-cost path runs through it, adds a shortcut arc between them. A
+ * shortcut remembers the node it skips, so paths are recovered by unpacking it
+ * into the two arcs it replaced. Every min-cost path then has a version that
+ * only climbs to more important nodes and then only descends, so a query runs
+ * a Dijkstra search upward from both ends and meets in the middle, skipping
+ * the nodes that a higher node already reaches more cheaply.
+ *
+ * <p>
+ * </p>
+ *
+ * Since arcs are undirected, the upward arcs of each node serve both searches.
+ * The hierarchy is immutable once built; each thread queries it with its own
+ * {@link Query}.
+ */
+final class ContractionHierarchy {
+
+    /* Nodes a witness search settles before giving up and adding the shortcut */
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+
+    /* A smaller limit when only estimating a node's shortcuts to order the nodes */
+    private static final int ESTIMATE_SETTLE_LIMIT = 16;
+
+    private final CsrGraph graph;
+
+    /* The upward arcs of node u are [offsets[u], offsets[u + 1]), each to a node of higher rank */
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] middles;
+    private final int shortcutCount;
+
+    private final long buildNanos;
+
+    private ContractionHierarchy(CsrGraph graph, int[] offsets, int[] targets, int[] weights, int[] middles,
+                                 int shortcutCount, long buildNanos) {
+        this.graph = graph;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.middles = middles;
+        this.shortcutCount = shortcutCount;
+        this.buildNanos = buildNanos;
+    }
+
+    /**
+     * Contracts every node of a graph.
+     *
+     * @param graph the weighted graph, which must have the same cost in both directions of an edge
+     * @return the hierarchy
+     */
+    static ContractionHierarchy build(CsrGraph graph) {
+        long start = System.nanoTime();
+        Builder builder = new Builder(graph);
+        builder.contractAll();
+        return builder.toHierarchy(graph, System.nanoTime() - start);
+    }
+
+    CsrGraph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Returns what building the hierarchy cost.
+     *
+     * @return the build time, size and memory of the hierarchy
+     */
+    ContractionStats getStats() {
+        long bytes = (long) Integer.BYTES * (this.offsets.length + 3L * this.targets.length);
+        return new ContractionStats(this.graph.getNodeCount(), this.graph.getArcCount() / 2,
+                this.shortcutCount, this.buildNanos, bytes);
+    }
+
+    /* Finds the upward arc between two nodes, which leaves the one of lower rank */
+    private int findArc(int node1, int node2) {
+        for (int arc = this.offsets[node1]; arc < this.offsets[node1 + 1]; arc++) {
+            if (this.targets[arc] == node2) {
+                return arc;
+            }
+        }
+        for (int arc = this.offsets[node2]; arc < this.offsets[node2 + 1]; arc++) {
+            if (this.targets[arc] == node1) {
+                return arc;
+            }
+        }
+        throw new IllegalStateException(String.format("No arc between %d and %d", node1, node2));
+    }
+
+    /**
+     * Represents a reusable bidirectional query over the hierarchy. The search
+     * arrays are allocated once and only the touched entries are reset, so
+     * repeated queries do not allocate (except for the paths they return). A
+     * query is not thread-safe.
+     */
+    final class Query {
+        private final int[][] dist = new int[2][];
+        private final int[][] parent = new int[2][];
+        private final IndexedIntHeap[] heaps = new IndexedIntHeap[2];
+        private final int[][] touched = new int[2][];
+        private final int[] touchedCount = new int[2];
+
+        private int meeting = -1;
+
+        Query() {
+            int nodeCount = ContractionHierarchy.this.graph.getNodeCount();
+            for (int side = 0; side < 2; side++) {
+                this.dist[side] = new int[nodeCount];
+                this.parent[side] = new int[nodeCount];
+                this.heaps[side] = new IndexedIntHeap(nodeCount);
+                this.touched[side] = new int[nodeCount];
+                Arrays.fill(this.dist[side], ShortestPaths.UNREACHABLE);
+            }
+        }
+
+        ContractionHierarchy getHierarchy() {
+            return ContractionHierarchy.this;
+        }
+
+        /**
+         * Calculates the cost of the min-cost path between two nodes.
+         *
+         * @param source the index of the starting node
+         * @param target the index of the ending node
+         * @return the min-cost, or ShortestPaths.UNREACHABLE
+         */
+        int minCost(int source, int target) {
+            this.reset();
+            this.touch(0, source, 0, -1);
+            this.touch(1, target, 0, -1);
+            this.heaps[0].offer(source, 0);
+            this.heaps[1].offer(target, 0);
+
+            /* Grow the side with the cheaper frontier until neither can find a cheaper meeting */
+            int best = ShortestPaths.UNREACHABLE;
+            this.meeting = -1;
+            long pops = 0, relaxations = 0;
+            while (true) {
+                IndexedIntHeap forward = this.heaps[0], backward = this.heaps[1];
+                boolean forwardOpen = !forward.isEmpty() && forward.peekKey() < best;
+                boolean backwardOpen = !backward.isEmpty() && backward.peekKey() < best;
+                if (!forwardOpen && !backwardOpen) {
+                    break;
+                }
+                int side = !backwardOpen || (forwardOpen && forward.peekKey() <= backward.peekKey()) ? 0 : 1;
+
+                int curr = this.heaps[side].poll();
+                int currDist = this.dist[side][curr];
+                int otherDist = this.dist[1 - side][curr];
+                if (otherDist != ShortestPaths.UNREACHABLE && currDist + otherDist < best) {
+                    best = currDist + otherDist;
+                    this.meeting = curr;
+                }
+
+                int[] offsets = ContractionHierarchy.this.offsets;
+                int begin = offsets[curr], end = offsets[curr + 1];
+                if (Metrics.ENABLED) {
+                    pops++;
+                    relaxations += end - begin;
+                }
+                if (this.isStalled(side, curr, currDist, begin, end)) {
+                    continue;
+                }
+                for (int arc = begin; arc < end; arc++) {
+                    int neighbor = ContractionHierarchy.this.targets[arc];
+                    int newDist = currDist + ContractionHierarchy.this.weights[arc];
+                    if (newDist < this.dist[side][neighbor]) {
+                        this.touch(side, neighbor, newDist, curr);
+                        this.heaps[side].offer(neighbor, newDist);
+                    }
+                }
+            }
+            this.heaps[0].clear();
+            this.heaps[1].clear();
+
+            if (Metrics.ENABLED) {
+                Metrics.add(Metrics.Counter.SHORTEST_PATH_QUERIES, 1);
+                Metrics.add(Metrics.Counter.HEAP_POPS, pops);
+                Metrics.add(Metrics.Counter.EDGE_RELAXATIONS, relaxations);
+            }
+            return best;
+        }
+
+        /*
+         * Checks if a higher node reaches this one more cheaply than the upward
+         * search did (stall-on-demand), in which case the node isn't on the
+         * upward part of any min-cost path and its arcs don't need to be searched.
+         * The arcs are undirected, so the node's upward arcs lead to those nodes.
+         */
+        private boolean isStalled(int side, int node, int distance, int begin, int end) {
+            int[] dist = this.dist[side];
+            for (int arc = begin; arc < end; arc++) {
+                int higher = dist[ContractionHierarchy.this.targets[arc]];
+                if (higher != ShortestPaths.UNREACHABLE && higher + ContractionHierarchy.this.weights[arc] < distance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Finds the nodes in the min-cost path between two nodes, unpacking every
+         * shortcut on it into the original arcs.
+         *
+         * @param source the index of the starting node
+         * @param target the index of the ending node
+         * @return the indices from the source to the target, or an empty array if
+         *         the target is unreachable
+         */
+        int[] minCostPath(int source, int target) {
+            if (this.minCost(source, target) == ShortestPaths.UNREACHABLE) {
+                return new int[0];
+            }
+
+            /* The hierarchy path climbs from the source to the meeting node, then descends to the target */
+            int climb = 0;
+            for (int curr = this.meeting; curr >= 0; curr = this.parent[0][curr]) {
+                climb++;
+            }
+            int[] nodes = new int[climb];
+            for (int curr = this.meeting, i = climb; curr >= 0; curr = this.parent[0][curr]) {
+                nodes[--i] = curr;
+            }
+
+            IntList path = new IntList();
+            path.add(source);
+            for (int i = 0; i + 1 < nodes.length; i++) {
+                this.unpack(nodes[i], nodes[i + 1], path);
+            }
+            for (int curr = this.meeting; this.parent[1][curr] >= 0; curr = this.parent[1][curr]) {
+                this.unpack(curr, this.parent[1][curr], path);
+            }
+            return path.toArray();
+        }
+
+        /* Appends the original nodes after from on the arc to to (without from itself) */
+        private void unpack(int from, int to, IntList path) {
+            IntList stack = new IntList();
+            stack.add(to);
+            int curr = from;
+            while (stack.size() > 0) {
+                int next = stack.get(stack.size() - 1);
+                int middle = ContractionHierarchy.this.middles[ContractionHierarchy.this.findArc(curr, next)];
+                if (middle < 0) {
+                    path.add(next);
+                    stack.removeLast();
+                    curr = next;
+                } else {
+                    stack.add(middle);
+                }
+            }
+        }
+
+        private void touch(int side, int node, int distance, int from) {
+            if (this.dist[side][node] == ShortestPaths.UNREACHABLE) {
+                this.touched[side][this.touchedCount[side]++] = node;
+            }
+            this.dist[side][node] = distance;
+            this.parent[side][node] = from;
+        }
+
+        private void reset() {
+            for (int side = 0; side < 2; side++) {
+                for (int i = 0; i < this.touchedCount[side]; i++) {
+                    this.dist[side][this.touched[side][i]] = ShortestPaths.UNREACHABLE;
+                }
+                this.touchedCount[side] = 0;
+            }
+        }
+    }
+
+    /**
+     * Represents a growable list of ints.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        int get(int index) {
+            return this.values[index];
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        void removeLast() {
+            this.size--;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+
+    /**
+     * Contracts the nodes of a graph, keeping the arcs between the nodes that are
+     * left in growable adjacency lists.
+     */
+    private static final class Builder {
+        private final int nodeCount;
+
+        /* The arcs of each node to the nodes that are left, with the node each one skips (or -1) */
+        private final int[][] neighbors, costs, skipped;
+        private final int[] degrees;
+
+        private final int[] contractedNeighbors;
+        private final int[] levels;
+
+        /* The upward arcs, recorded as each node is contracted */
+        private final int[] upwardOffsets;
+        private final IntList upwardTargets = new IntList(), upwardWeights = new IntList(),
+                upwardMiddles = new IntList();
+        private final int[] upwardOrder;
+        private int rank;
+        private int shortcutCount;
+
+        /* The witness search */
+        private final int[] witnessDist;
+        private final int[] witnessTouched;
+        private int witnessTouchedCount;
+        private final IndexedIntHeap witnessHeap;
+
+        /* Marks the targets of the current witness search */
+        private final int[] witnessTargets;
+        private int witnessRound;
+
+        private Builder(CsrGraph graph) {
+            this.nodeCount = graph.getNodeCount();
+            this.neighbors = new int[this.nodeCount][];
+            this.costs = new int[this.nodeCount][];
+            this.skipped = new int[this.nodeCount][];
+            this.degrees = new int[this.nodeCount];
+            for (int node = 0; node < this.nodeCount; node++) {
+                int degree = graph.degree(node);
+                this.neighbors[node] = new int[Math.max(degree, 4)];
+                this.costs[node] = new int[this.neighbors[node].length];
+                this.skipped[node] = new int[this.neighbors[node].length];
+                for (int arc = graph.begin(node); arc < graph.end(node); arc++) {
+                    this.neighbors[node][this.degrees[node]] = graph.target(arc);
+                    this.costs[node][this.degrees[node]] = graph.weight(arc);
+                    this.skipped[node][this.degrees[node]] = -1;
+                    this.degrees[node]++;
+                }
+            }
+
+            this.contractedNeighbors = new int[this.nodeCount];
+            this.levels = new int[this.nodeCount];
+            this.upwardOffsets = new int[this.nodeCount + 1];
+            this.upwardOrder = new int[this.nodeCount];
+
+            this.witnessDist = new int[this.nodeCount];
+            this.witnessTouched = new int[this.nodeCount];
+            this.witnessHeap = new IndexedIntHeap(this.nodeCount);
+            this.witnessTargets = new int[this.nodeCount];
+            Arrays.fill(this.witnessDist, ShortestPaths.UNREACHABLE);
+        }
+
+        private void contractAll() {
+            IndexedIntHeap order = new IndexedIntHeap(this.nodeCount);
+            for (int node = 0; node < this.nodeCount; node++) {
+                order.offer(node, this.priority(node));
+            }
+
+            while (!order.isEmpty()) {
+                int node = order.poll();
+
+                /* Priorities go stale as neighbors are contracted, so re-check before contracting */
+                int priority = this.priority(node);
+                if (!order.isEmpty() && priority > order.peekKey()) {
+                    order.offer(node, priority);
+                    continue;
+                }
+
+                this.contract(node, false);
+                for (int i = 0; i < this.degrees[node]; i++) {
+                    int neighbor = this.neighbors[node][i];
+                    this.contractedNeighbors[neighbor]++;
+                    this.levels[neighbor] = Math.max(this.levels[neighbor], this.levels[node] + 1);
+                    this.removeArc(neighbor, node);
+                }
+            }
+        }
+
+        /*
+         * Prefers nodes that add few shortcuts for the arcs they remove, whose
+         * neighbors were not contracted yet and which are low in the hierarchy,
+         * so that the contractions spread evenly and the hierarchy stays shallow
+         */
+        private int priority(int node) {
+            return 2 * (this.contract(node, true) - this.degrees[node]) + this.contractedNeighbors[node]
+                    + 2 * this.levels[node];
+        }
+
+        /**
+         * Contracts a node, or only counts the shortcuts contracting it would add.
+         *
+         * @param node     the node to contract
+         * @param simulate true to only count the shortcuts
+         * @return the number of shortcuts (added or needed)
+         */
+        private int contract(int node, boolean simulate) {
+            int degree = this.degrees[node];
+            int[] neighbors = this.neighbors[node], costs = this.costs[node];
+
+            int shortcuts = 0;
+            for (int i = 0; i + 1 < degree; i++) {
+                /* Each pair is checked once, from its first neighbor to the later ones */
+                int from = neighbors[i];
+                int maxCost = 0;
+                for (int j = i + 1; j < degree; j++) {
+                    maxCost = Math.max(maxCost, costs[j]);
+                }
+                this.witnessSearch(from, node, costs[i] + maxCost, neighbors, i + 1, degree,
+                        simulate ? ESTIMATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+
+                for (int j = i + 1; j < degree; j++) {
+                    int to = neighbors[j];
+                    int cost = costs[i] + costs[j];
+                    if (this.witnessDist[to] > cost) {
+                        shortcuts++;
+                        if (!simulate) {
+                            this.addShortcut(from, to, cost, node);
+                        }
+                    }
+                }
+            }
+
+            if (!simulate) {
+                /* The node's arcs to the nodes that are left all lead upward */
+                this.upwardOrder[this.rank++] = node;
+                this.upwardOffsets[node + 1] = degree;
+                for (int i = 0; i < degree; i++) {
+                    this.upwardTargets.add(neighbors[i]);
+                    this.upwardWeights.add(costs[i]);
+                    this.upwardMiddles.add(this.skipped[node][i]);
+                }
+                this.shortcutCount += shortcuts;
+            }
+            return shortcuts;
+        }
+
+        /*
+         * Runs a limited Dijkstra search from a node that avoids the node being
+         * contracted, until the targets are settled or are too far to matter
+         */
+        private void witnessSearch(int source, int avoided, int maxCost, int[] targets, int targetStart,
+                                   int targetEnd, int settleLimit) {
+            for (int i = 0; i < this.witnessTouchedCount; i++) {
+                this.witnessDist[this.witnessTouched[i]] = ShortestPaths.UNREACHABLE;
+            }
+            this.witnessTouchedCount = 0;
+
+            this.witnessRound++;
+            for (int i = targetStart; i < targetEnd; i++) {
+                this.witnessTargets[targets[i]] = this.witnessRound;
+            }
+            int targetsLeft = targetEnd - targetStart;
+
+            this.witnessTouch(source, 0);
+            this.witnessHeap.offer(source, 0);
+            int settled = 0;
+            while (targetsLeft > 0 && !this.witnessHeap.isEmpty() && this.witnessHeap.peekKey() <= maxCost
+                    && settled++ < settleLimit) {
+                int curr = this.witnessHeap.poll();
+                if (this.witnessTargets[curr] == this.witnessRound) {
+                    targetsLeft--;
+                }
+
+                int currDist = this.witnessDist[curr];
+                int[] neighbors = this.neighbors[curr], costs = this.costs[curr];
+                for (int i = 0; i < this.degrees[curr]; i++) {
+                    int neighbor = neighbors[i];
+                    int newDist = currDist + costs[i];
+                    if (neighbor != avoided && newDist < this.witnessDist[neighbor]) {
+                        this.witnessTouch(neighbor, newDist);
+                        this.witnessHeap.offer(neighbor, newDist);
+                    }
+                }
+            }
+            this.witnessHeap.clear();
+        }
+
+        private void witnessTouch(int node, int distance) {
+            if (this.witnessDist[node] == ShortestPaths.UNREACHABLE) {
+                this.witnessTouched[this.witnessTouchedCount++] = node;
+            }
+            this.witnessDist[node] = distance;
+        }
+
+        /* Adds the shortcut in both directions, or lowers the cost of an existing arc */
+        private void addShortcut(int node1, int node2, int cost, int middle) {
+            this.setArc(node1, node2, cost, middle);
+            this.setArc(node2, node1, cost, middle);
+        }
+
+        private void setArc(int from, int to, int cost, int middle) {
+            int degree = this.degrees[from];
+            for (int i = 0; i < degree; i++) {
+                if (this.neighbors[from][i] == to) {
+                    if (cost < this.costs[from][i]) {
+                        this.costs[from][i] = cost;
+                        this.skipped[from][i] = middle;
+                    }
+                    return;
+                }
+            }
+
+            if (degree == this.neighbors[from].length) {
+                this.neighbors[from] = Arrays.copyOf(this.neighbors[from], degree * 2);
+                this.costs[from] = Arrays.copyOf(this.costs[from], degree * 2);
+                this.skipped[from] = Arrays.copyOf(this.skipped[from], degree * 2);
+            }
+            this.neighbors[from][degree] = to;
+            this.costs[from][degree] = cost;
+            this.skipped[from][degree] = middle;
+            this.degrees[from]++;
+        }
+
+        private void removeArc(int from, int to) {
+            int last = --this.degrees[from];
+            for (int i = 0; i <= last; i++) {
+                if (this.neighbors[from][i] == to) {
+                    this.neighbors[from][i] = this.neighbors[from][last];
+                    this.costs[from][i] = this.costs[from][last];
+                    this.skipped[from][i] = this.skipped[from][last];
+                    return;
+                }
+            }
+            this.degrees[from]++;
+        }
+
+        private ContractionHierarchy toHierarchy(CsrGraph graph, long buildNanos) {
+            /* The arcs were recorded in contraction order, so re-order them by node */
+            int[] recordedStarts = new int[this.nodeCount];
+            for (int r = 0, start = 0; r < this.nodeCount; r++) {
+                int node = this.upwardOrder[r];
+                recordedStarts[node] = start;
+                start += this.upwardOffsets[node + 1];
+            }
+            for (int node = 0; node < this.nodeCount; node++) {
+                this.upwardOffsets[node + 1] += this.upwardOffsets[node];
+            }
+
+            int arcCount = this.upwardTargets.size();
+            int[] targets = new int[arcCount], weights = new int[arcCount], middles = new int[arcCount];
+            for (int node = 0; node < this.nodeCount; node++) {
+                int from = recordedStarts[node];
+                for (int arc = this.upwardOffsets[node]; arc < this.upwardOffsets[node + 1]; arc++, from++) {
+                    targets[arc] = this.upwardTargets.get(from);
+                    weights[arc] = this.upwardWeights.get(from);
+                    middles[arc] = this.upwardMiddles.get(from);
+                }
+            }
+            return new ContractionHierarchy(graph, this.upwardOffsets, targets, weights, middles,
+                    this.shortcutCount, buildNanos);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.grivera.generator;
+
+/**
+ * Represents what building the contraction hierarchy of a network cost, to weigh
+ * against how much faster it makes the min-cost queries.
+ *
+ * @see Network#buildContractionHierarchy()
+ */
+public final class ContractionStats {
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int shortcutCount;
+    private final long buildNanos;
+    private final long memoryBytes;
+
+    ContractionStats(int nodeCount, int edgeCount, int shortcutCount, long buildNanos, long memoryBytes) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.shortcutCount = shortcutCount;
+        this.buildNanos = buildNanos;
+        this.memoryBytes = memoryBytes;
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Returns the number of edges of the network's graph.
+     *
+     * @return the number of undirected edges (before adding shortcuts)
+     */
+    public int getEdgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * Returns the number of shortcuts added while contracting the nodes.
+     *
+     * @return the number of undirected shortcuts
+     */
+    public int getShortcutCount() {
+        return this.shortcutCount;
+    }
+
+    /**
+     * Returns how long building the hierarchy took.
+     *
+     * @return the build time (in nanoseconds)
+     */
+    public long getBuildNanos() {
+        return this.buildNanos;
+    }
+
+    /**
+     * Returns the memory the hierarchy keeps, not counting the per-thread query
+     * arrays (about twelve ints per node for each thread that queries it).
+     *
+     * @return the size of the hierarchy's arrays (in bytes)
+     */
+    public long getMemoryBytes() {
+        return this.memoryBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Contraction hierarchy of %d nodes and %d edges: %d shortcuts, %.3f ms, %.1f KiB",
+                this.nodeCount, this.edgeCount, this.shortcutCount, this.buildNanos / 1e6, this.memoryBytes / 1024.0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.SensorNode;
+
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Represents the lower bound on the min-cost from any node of a graph to a target
+ * node that guides an A* search, from the straight-line distance between them and
+ * the first-order radio model (see {@link SensorNode#getMinRelayCost(double, double)}).
+ *
+ * <p>
+ * </p>
+ *
+ * The longest hop is the longest arc of the graph, and the bound follows the cost
+ * model at the time it is calculated, so a bound must be re-created along with its
+ * graph when the cost model changes. A bound is not thread-safe.
+ */
+final class CostBound {
+
+    private final CsrGraph graph;
+    private final IntToDoubleFunction xs, ys;
+    private final double maxHop;
+
+    private double targetX, targetY;
+
+    /**
+     * Creates the bound over the given graph.
+     *
+     * @param graph the weighted graph
+     * @param xs    the x coordinate of each node (by index)
+     * @param ys    the y coordinate of each node (by index)
+     */
+    CostBound(CsrGraph graph, IntToDoubleFunction xs, IntToDoubleFunction ys) {
+        this.graph = graph;
+        this.xs = xs;
+        this.ys = ys;
+
+        double maxHop = 0;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            for (int arc = graph.begin(node); arc < graph.end(node); arc++) {
+                maxHop = Math.max(maxHop, this.distance(node, graph.target(arc)));
+            }
+        }
+        this.maxHop = maxHop;
+    }
+
+    CsrGraph getGraph() {
+        return this.graph;
+    }
+
+    void setTarget(int target) {
+        this.targetX = this.xs.applyAsDouble(target);
+        this.targetY = this.ys.applyAsDouble(target);
+    }
+
+    /**
+     * Calculates the lower bound from a node to the current target.
+     *
+     * @param node the index of the node
+     * @return the bound, which is never more than the min-cost to the target
+     */
+    int toTarget(int node) {
+        double dx = this.xs.applyAsDouble(node) - this.targetX;
+        double dy = this.ys.applyAsDouble(node) - this.targetY;
+
+        /* Rounding down keeps the bound consistent, and the margin absorbs floating-point error */
+        double bound = SensorNode.getMinRelayCost(Math.sqrt(dx * dx + dy * dy), this.maxHop);
+        return (int) Math.max(0, Math.floor(bound - 1e-6));
+    }
+
+    private double distance(int node1, int node2) {
+        double dx = this.xs.applyAsDouble(node1) - this.xs.applyAsDouble(node2);
+        double dy = this.ys.applyAsDouble(node1) - this.ys.applyAsDouble(node2);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,339 @@
+package com.grivera.generator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Represents an immutable weighted graph in compressed-sparse-row form.
+ *
+ * <p>
+ * </p>
+ *
+ * The arcs leaving node u are the indices [begin(u), end(u)), and each arc
+ * stores its head node in targets and its cost in weights. An undirected
+ * edge is stored as one arc in each direction.
+ *
+ * <p>
+ * </p>
+ *
+ * The arrays are either int arrays on the heap or IntBuffers, which may live
+ * off the heap (e.g. mapped straight from a saved file).
+ */
+abstract class CsrGraph {
+
+    /**
+     * Creates a graph from arrays that are already in CSR form (e.g. read from a file).
+     *
+     * @param offsets the first arc of each node, followed by the number of arcs
+     * @param targets the head node of each arc
+     * @param weights the cost of each arc
+     * @return the graph
+     * @throws IllegalArgumentException if the arrays are not a valid CSR graph (or a weight is negative)
+     */
+    static CsrGraph of(int[] offsets, int[] targets, int[] weights) {
+        return validate(new ArrayGraph(offsets, targets, weights));
+    }
+
+    /**
+     * Creates a graph from buffers that are already in CSR form, without copying them.
+     *
+     * @param offsets the first arc of each node, followed by the number of arcs
+     * @param targets the head node of each arc
+     * @param weights the cost of each arc
+     * @return the graph
+     * @throws IllegalArgumentException if the buffers are not a valid CSR graph (or a weight is negative)
+     */
+    static CsrGraph of(IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+        return validate(new BufferGraph(offsets, targets, weights));
+    }
+
+    private static CsrGraph validate(CsrGraph graph) {
+        int nodeCount = graph.getNodeCount();
+        if (nodeCount < 0 || graph.offset(0) != 0 || graph.offset(nodeCount) != graph.getArcCount()
+                || graph.getWeightCount() != graph.getArcCount()) {
+            throw new IllegalArgumentException("Invalid CSR graph");
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            if (graph.begin(node) > graph.end(node)) {
+                throw new IllegalArgumentException("Invalid CSR graph");
+            }
+        }
+        /* Every search assumes the costs are not negative */
+        for (int arc = 0; arc < graph.getArcCount(); arc++) {
+            if (graph.target(arc) < 0 || graph.target(arc) >= nodeCount || graph.weight(arc) < 0) {
+                throw new IllegalArgumentException("Invalid CSR graph");
+            }
+        }
+        return graph;
+    }
+
+    abstract int getNodeCount();
+
+    /**
+     * Returns the number of arcs, which is twice the number of undirected edges.
+     *
+     * @return the number of arcs in the graph
+     */
+    abstract int getArcCount();
+
+    int begin(int node) {
+        return this.offset(node);
+    }
+
+    int end(int node) {
+        return this.offset(node + 1);
+    }
+
+    int degree(int node) {
+        return this.end(node) - this.begin(node);
+    }
+
+    abstract int target(int arc);
+
+    abstract int weight(int arc);
+
+    boolean hasArc(int from, int to) {
+        for (int arc = this.begin(from); arc < this.end(from); arc++) {
+            if (this.target(arc) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a graph with the same arcs and newly calculated weights, stored
+     * in the same kind of memory as this graph.
+     *
+     * @param cost calculates the weight of the arc from the first node to the second
+     * @return the re-weighted graph
+     */
+    abstract CsrGraph withWeights(IntBinaryOperator cost);
+
+    /**
+     * Returns this graph with its arrays in direct (off-heap) buffers, copying
+     * them if they are on the heap.
+     *
+     * @return the off-heap graph
+     */
+    abstract CsrGraph toDirect();
+
+    /**
+     * Returns this graph with its arrays on the heap, copying them if they are
+     * in buffers.
+     *
+     * @return the on-heap graph
+     */
+    abstract CsrGraph toHeap();
+
+    /* The first arc of a node, where offset(getNodeCount()) is the number of arcs */
+    abstract int offset(int node);
+
+    abstract int getWeightCount();
+
+    static IntBuffer allocateDirect(int size) {
+        return ByteBuffer.allocateDirect(size * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * Represents a graph whose arrays are on the heap.
+     */
+    private static final class ArrayGraph extends CsrGraph {
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] weights;
+
+        private ArrayGraph(int[] offsets, int[] targets, int[] weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        int getNodeCount() {
+            return this.offsets.length - 1;
+        }
+
+        @Override
+        int getArcCount() {
+            return this.targets.length;
+        }
+
+        @Override
+        int target(int arc) {
+            return this.targets[arc];
+        }
+
+        @Override
+        int weight(int arc) {
+            return this.weights[arc];
+        }
+
+        @Override
+        CsrGraph withWeights(IntBinaryOperator cost) {
+            int[] weights = new int[this.targets.length];
+            for (int node = 0; node < this.getNodeCount(); node++) {
+                for (int arc = this.offsets[node]; arc < this.offsets[node + 1]; arc++) {
+                    weights[arc] = cost.applyAsInt(node, this.targets[arc]);
+                }
+            }
+            return new ArrayGraph(this.offsets, this.targets, weights);
+        }
+
+        @Override
+        CsrGraph toDirect() {
+            return new BufferGraph(allocateDirect(this.offsets.length).put(this.offsets).flip(),
+                    allocateDirect(this.targets.length).put(this.targets).flip(),
+                    allocateDirect(this.weights.length).put(this.weights).flip());
+        }
+
+        @Override
+        CsrGraph toHeap() {
+            return this;
+        }
+
+        @Override
+        int offset(int node) {
+            return this.offsets[node];
+        }
+
+        @Override
+        int getWeightCount() {
+            return this.weights.length;
+        }
+    }
+
+    /**
+     * Represents a graph whose arrays are IntBuffers (indexed from 0 to their limit).
+     */
+    private static final class BufferGraph extends CsrGraph {
+        private final IntBuffer offsets;
+        private final IntBuffer targets;
+        private final IntBuffer weights;
+
+        private BufferGraph(IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        int getNodeCount() {
+            return this.offsets.limit() - 1;
+        }
+
+        @Override
+        int getArcCount() {
+            return this.targets.limit();
+        }
+
+        @Override
+        int target(int arc) {
+            return this.targets.get(arc);
+        }
+
+        @Override
+        int weight(int arc) {
+            return this.weights.get(arc);
+        }
+
+        @Override
+        CsrGraph withWeights(IntBinaryOperator cost) {
+            IntBuffer weights = this.weights.isDirect()
+                    ? allocateDirect(this.targets.limit())
+                    : IntBuffer.allocate(this.targets.limit());
+            for (int node = 0; node < this.getNodeCount(); node++) {
+                for (int arc = this.begin(node); arc < this.end(node); arc++) {
+                    weights.put(arc, cost.applyAsInt(node, this.targets.get(arc)));
+                }
+            }
+            return new BufferGraph(this.offsets, this.targets, weights);
+        }
+
+        @Override
+        CsrGraph toDirect() {
+            if (this.offsets.isDirect() && this.targets.isDirect() && this.weights.isDirect()) {
+                return this;
+            }
+            return new BufferGraph(copyDirect(this.offsets), copyDirect(this.targets), copyDirect(this.weights));
+        }
+
+        @Override
+        CsrGraph toHeap() {
+            return new ArrayGraph(toArray(this.offsets), toArray(this.targets), toArray(this.weights));
+        }
+
+        private static int[] toArray(IntBuffer buffer) {
+            int[] values = new int[buffer.limit()];
+            buffer.get(0, values);
+            return values;
+        }
+
+        private static IntBuffer copyDirect(IntBuffer buffer) {
+            return buffer.isDirect() ? buffer : allocateDirect(buffer.limit()).put(buffer.duplicate().rewind()).flip();
+        }
+
+        @Override
+        int offset(int node) {
+            return this.offsets.get(node);
+        }
+
+        @Override
+        int getWeightCount() {
+            return this.weights.limit();
+        }
+    }
+
+    /**
+     * Collects undirected edges and packs them into a CsrGraph.
+     */
+    static final class Builder {
+        private final int nodeCount;
+        private int[] from;
+        private int[] to;
+        private int edgeCount;
+
+        Builder(int nodeCount) {
+            this.nodeCount = nodeCount;
+            this.from = new int[Math.max(nodeCount, 16)];
+            this.to = new int[this.from.length];
+        }
+
+        void addEdge(int node1, int node2) {
+            if (this.edgeCount == this.from.length) {
+                this.from = Arrays.copyOf(this.from, this.edgeCount * 2);
+                this.to = Arrays.copyOf(this.to, this.edgeCount * 2);
+            }
+            this.from[this.edgeCount] = node1;
+            this.to[this.edgeCount] = node2;
+            this.edgeCount++;
+        }
+
+        CsrGraph build(IntBinaryOperator cost) {
+            int[] offsets = new int[this.nodeCount + 1];
+            for (int i = 0; i < this.edgeCount; i++) {
+                offsets[this.from[i] + 1]++;
+                offsets[this.to[i] + 1]++;
+            }
+            for (int node = 0; node < this.nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+
+            int[] targets = new int[this.edgeCount * 2];
+            int[] next = Arrays.copyOf(offsets, this.nodeCount);
+            for (int i = 0; i < this.edgeCount; i++) {
+                targets[next[this.from[i]]++] = this.to[i];
+                targets[next[this.to[i]]++] = this.from[i];
+            }
+
+            /* List neighbors in index order, so the graph doesn't depend on the order edges were found in */
+            for (int node = 0; node < this.nodeCount; node++) {
+                Arrays.sort(targets, offsets[node], offsets[node + 1]);
+            }
+            return new ArrayGraph(offsets, targets, new int[0]).withWeights(cost);
+        }
+    }
+}
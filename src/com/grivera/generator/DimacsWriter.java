@@ -0,0 +1,317 @@
+package com.grivera.generator;
+
+import com.grivera.generator.flow.ArcPruning;
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.StorageNode;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Represents a buffered writer of min-cost flow problems in the <b>DIMAC</b> format
+ * used by <a href="https://github.com/iveney/cs2">CS2</a>.
+ *
+ * <p>
+ * </p>
+ *
+ * Numbers are formatted straight into a byte buffer instead of going through
+ * a Formatter, and comment lines (including the blank lines between sections)
+ * are only written if they are enabled.
+ */
+final class DimacsWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /* Long enough for any long in base 10 with its sign */
+    private static final int MAX_NUMBER_LENGTH = 20;
+
+    private final OutputStream out;
+    private final boolean includeComments;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int size;
+
+    /**
+     * Creates a file to write a flow problem to, replacing the file if it exists.
+     *
+     * @param path            the path to the file
+     * @param includeComments true to write comment lines, false to skip them
+     * @param gzip            true to compress the file with gzip
+     * @throws IOException if the file cannot be created
+     */
+    DimacsWriter(Path path, boolean includeComments, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        this.out = gzip ? new FastGzipOutputStream(out) : out;
+        this.includeComments = includeComments;
+    }
+
+    /**
+     * Saves the min-cost flow problem of a network, printing whether it was saved.
+     *
+     * @param network         the network
+     * @param costMatrix      the min-cost from the Data Node with ID i + 1 to the Storage Node with ID j + 1
+     * @param fileName        the path to the file (compressed with gzip if it ends in .gz)
+     * @param includeComments true to write comment lines, false to skip them
+     */
+    static void save(Network network, int[][] costMatrix, String fileName, boolean includeComments) {
+        save(network, costMatrix, fileName, includeComments, ArcPruning.NONE);
+    }
+
+    /**
+     * Saves the min-cost flow problem of a network without the DN -> SN arcs that
+     * the pruning drops, printing whether it was saved and how many arcs were dropped.
+     *
+     * @param network         the network
+     * @param costMatrix      the min-cost from the Data Node with ID i + 1 to the Storage Node with ID j + 1
+     * @param fileName        the path to the file (compressed with gzip if it ends in .gz)
+     * @param includeComments true to write comment lines, false to skip them
+     * @param pruning         which DN -> SN arcs to leave out
+     */
+    static void save(Network network, int[][] costMatrix, String fileName, boolean includeComments,
+                     ArcPruning pruning) {
+        final int p = network.getDataNodeCount();
+        final int s = network.getStorageNodeCount();
+        final int q = network.getDataPacketCount();
+        final int supply = q * p;
+        final int demand = -supply;
+
+        int[] packetValues = new int[p];
+        for (DataNode dn : network.getDataNodes()) {
+            packetValues[dn.getId() - 1] = dn.getOverflowPacketValue();
+        }
+        ArcPruning.Result kept = pruning.apply(packetValues, costMatrix, q, network.getStorageCapacity());
+
+        final int totalNodes = p + s + 3;
+        final long totalEdges = p + kept.getKeptCount() + p + (s + 1);
+
+        File file = new File(fileName);
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.EXPORT);
+        try (DimacsWriter writer = new DimacsWriter(file.toPath(), includeComments, fileName.endsWith(".gz"))) {
+            /* Header */
+            writer.comment("Min-Cost flow problem with ", totalNodes, " nodes and ", totalEdges, " arcs (edges)");
+            writer.problem(totalNodes, totalEdges);
+            writer.blankLine();
+
+            /* Set s (source) and t (sink) nodes */
+            writer.comment("Supply of ", supply, " at node ", 0, " (\"Source\")");
+            writer.node(0, supply);
+            writer.blankLine();
+
+            writer.comment("Demand of ", demand, " at node ", totalNodes - 1, " (\"Sink\")");
+            writer.node(totalNodes - 1, demand);
+            writer.blankLine();
+
+            /* Arcs */
+            writer.comment("arc list follows");
+            writer.comment("arc has <tail> <head> <capacity l.b.> <capacity u.b> <cost>");
+
+            /* Path from Source to DN is always 0 cost (not represented in the network) */
+            for (DataNode dn : network.getDataNodes()) {
+                writer.comment("Source -> ", dn.getName());
+                writer.arc(0, dn.getId(), 0, q, 0);
+            }
+            writer.blankLine();
+
+            /* DN# -> SN#, Dummy */
+            if (kept.getRemovedCount() > 0) {
+                writer.comment("Pruned ", kept.getRemovedCount(), " unprofitable or dominated DN -> SN arcs");
+            }
+            List<StorageNode> storageNodes = network.getStorageNodes();
+            int[] costs;
+            for (DataNode dn : network.getDataNodes()) {
+                costs = costMatrix[dn.getId() - 1];
+                for (int j : kept.getKept(dn.getId() - 1)) {
+                    StorageNode sn = storageNodes.get(j);
+                    writer.comment(dn.getName(), " -> ", sn.getName());
+                    writer.arc(dn.getId(), sn.getId() + p, 0, q, costs[j] - (long) dn.getOverflowPacketValue());
+                }
+                writer.comment(dn.getName(), " to Dummy Node");
+                writer.arc(dn.getId(), totalNodes - 2, 0, q, 0);
+                writer.blankLine();
+            }
+
+            /* Path from SN, Dummy -> Sink is always 0 cost (not represented in the network) */
+            writer.comment("SNs to Sink");
+            for (StorageNode sn : network.getStorageNodes()) {
+                writer.arc(sn.getId() + p, totalNodes - 1, 0, network.getStorageCapacity(), 0);
+            }
+            writer.comment("Dummy to Sink");
+            writer.arc(totalNodes - 2, totalNodes - 1, 0, supply, 0);
+
+            System.out.printf("Saved flow network in file \"%s\"!\n", fileName);
+            if (pruning != ArcPruning.NONE) {
+                System.out.printf("Pruned %d of %d DN -> SN arcs\n", kept.getRemovedCount(), (long) p * s);
+            }
+        } catch (IOException e) {
+            System.out.printf("ERROR: Failed to create %s\n", fileName);
+        } finally {
+            Metrics.stop(timer);
+        }
+    }
+
+    /**
+     * Writes a comment line made of the given parts, if comments are enabled.
+     *
+     * @param parts the text (ASCII only) and integers that make up the comment
+     * @throws IOException if the file cannot be written
+     */
+    void comment(Object... parts) throws IOException {
+        if (!this.includeComments) {
+            return;
+        }
+        this.write('c');
+        this.write(' ');
+        for (Object part : parts) {
+            if (part instanceof Integer || part instanceof Long) {
+                this.write(((Number) part).longValue());
+            } else {
+                this.write(String.valueOf(part));
+            }
+        }
+        this.write('\n');
+    }
+
+    /**
+     * Writes an empty line to separate sections, if comments are enabled.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    void blankLine() throws IOException {
+        if (this.includeComments) {
+            this.write('\n');
+        }
+    }
+
+    /**
+     * Writes the problem line.
+     *
+     * @param nodeCount the number of nodes
+     * @param arcCount  the number of arcs
+     * @throws IOException if the file cannot be written
+     */
+    void problem(int nodeCount, long arcCount) throws IOException {
+        this.write("p min ");
+        this.write(nodeCount);
+        this.write(' ');
+        this.write(arcCount);
+        this.write('\n');
+    }
+
+    /**
+     * Writes a node descriptor line.
+     *
+     * @param node   the node
+     * @param supply the supply of the node (negative for a demand)
+     * @throws IOException if the file cannot be written
+     */
+    void node(int node, long supply) throws IOException {
+        this.write("n ");
+        this.write(node);
+        this.write(' ');
+        this.write(supply);
+        this.write('\n');
+    }
+
+    /**
+     * Writes an arc descriptor line.
+     *
+     * @param tail          the tail of the arc
+     * @param head          the head of the arc
+     * @param lowerCapacity the lower capacity bound of the arc
+     * @param upperCapacity the upper capacity bound of the arc
+     * @param cost          the cost of sending one unit of flow through the arc
+     * @throws IOException if the file cannot be written
+     */
+    void arc(int tail, int head, int lowerCapacity, int upperCapacity, long cost) throws IOException {
+        this.ensureCapacity(2 + 5 * (MAX_NUMBER_LENGTH + 1));
+        this.buffer[this.size++] = 'a';
+        this.buffer[this.size++] = ' ';
+        this.appendNumber(tail);
+        this.buffer[this.size++] = ' ';
+        this.appendNumber(head);
+        this.buffer[this.size++] = ' ';
+        this.appendNumber(lowerCapacity);
+        this.buffer[this.size++] = ' ';
+        this.appendNumber(upperCapacity);
+        this.buffer[this.size++] = ' ';
+        this.appendNumber(cost);
+        this.buffer[this.size++] = '\n';
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    private void write(char c) throws IOException {
+        this.ensureCapacity(1);
+        this.buffer[this.size++] = (byte) c;
+    }
+
+    private void write(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            this.write(text.charAt(i));
+        }
+    }
+
+    private void write(long number) throws IOException {
+        this.ensureCapacity(MAX_NUMBER_LENGTH);
+        this.appendNumber(number);
+    }
+
+    /* Formats the digits backwards from the end of the number (the buffer must have room for it) */
+    private void appendNumber(long number) {
+        if (number == 0) {
+            this.buffer[this.size++] = '0';
+            return;
+        }
+
+        int length = 0;
+        for (long rest = number; rest != 0; rest /= 10) {
+            length++;
+        }
+        if (number < 0) {
+            this.buffer[this.size++] = '-';
+        }
+
+        /* Work with negative numbers so Long.MIN_VALUE doesn't overflow */
+        long rest = number < 0 ? number : -number;
+        for (int i = this.size + length - 1; i >= this.size; i--) {
+            this.buffer[i] = (byte) ('0' - rest % 10);
+            rest /= 10;
+        }
+        this.size += length;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (this.size + length > this.buffer.length) {
+            this.flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        this.out.write(this.buffer, 0, this.size);
+        this.size = 0;
+    }
+
+    /**
+     * Represents a gzip stream that favors speed over size, since the arc lines
+     * compress well either way.
+     */
+    private static final class FastGzipOutputStream extends GZIPOutputStream {
+        private FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            this.def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
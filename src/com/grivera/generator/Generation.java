@@ -0,0 +1,170 @@
+package com.grivera.generator;
+
+import java.util.SplittableRandom;
+import java.util.function.LongFunction;
+
+/**
+ * Represents how a network was randomly generated: the seed of the one candidate
+ * that was kept, along with the generation parameters that cannot be told from
+ * the network itself.
+ *
+ * <p>
+ * </p>
+ *
+ * Generating a candidate from the same seed and parameters places, types and
+ * values every node the same way, so a saved network can be regenerated exactly.
+ * The requested node counts are kept too, since a LARGEST_COMPONENT network only
+ * keeps some of the nodes it was generated with.
+ */
+final class Generation {
+
+    final long seed;
+    final int minValue, maxValue;
+    final GenerationMode mode;
+
+    /* The N, p and s the candidate was generated with, not how many nodes were kept */
+    final int nodeCount, dataNodeCount, storageNodeCount;
+
+    /**
+     * Creates the record of a generated candidate.
+     *
+     * @param seed             the seed the candidate was generated from
+     * @param minValue         the minimum value of a data packet (inclusive)
+     * @param maxValue         the maximum value of a data packet (inclusive)
+     * @param mode             how the nodes were placed
+     * @param nodeCount        the number of nodes requested
+     * @param dataNodeCount    the number of Data Nodes requested
+     * @param storageNodeCount the number of Storage Nodes requested
+     */
+    Generation(long seed, int minValue, int maxValue, GenerationMode mode, int nodeCount, int dataNodeCount,
+               int storageNodeCount) {
+        this.seed = seed;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.mode = mode;
+        this.nodeCount = nodeCount;
+        this.dataNodeCount = dataNodeCount;
+        this.storageNodeCount = storageNodeCount;
+    }
+
+    /**
+     * Creates the record of a candidate from a file that doesn't record the
+     * requested node counts, which are then the counts of the saved nodes.
+     *
+     * @param seed             the seed the candidate was generated from
+     * @param minValue         the minimum value of a data packet (inclusive)
+     * @param maxValue         the maximum value of a data packet (inclusive)
+     * @param mode             how the nodes were placed
+     * @param nodeCount        the number of saved nodes
+     * @param dataNodeCount    the number of saved Data Nodes
+     * @param storageNodeCount the number of saved Storage Nodes
+     * @return the generation, or null for a LARGEST_COMPONENT network, whose
+     *         requested counts are lost (so it cannot be regenerated)
+     */
+    static Generation ofSaved(long seed, int minValue, int maxValue, GenerationMode mode, int nodeCount,
+                              int dataNodeCount, int storageNodeCount) {
+        if (mode == GenerationMode.LARGEST_COMPONENT) {
+            return null;
+        }
+        return new Generation(seed, minValue, maxValue, mode, nodeCount, dataNodeCount, storageNodeCount);
+    }
+
+    /**
+     * Creates the random number generator of the candidate.
+     *
+     * @return a generator that always produces the same values for the same seed
+     */
+    SplittableRandom newRandom() {
+        return new SplittableRandom(this.seed);
+    }
+
+    /**
+     * Generates the nodes of the candidate.
+     *
+     * @param width  the width of the network (in meters)
+     * @param length the length of the network (in meters)
+     * @param tr     the transmission range of the nodes (in meters)
+     * @return the same columns every time
+     */
+    NodeColumns generate(double width, double length, double tr) {
+        return NodeColumns.generate(width, length, this.nodeCount, tr, this.dataNodeCount, this.storageNodeCount,
+                this.minValue, this.maxValue, this.mode, this.newRandom());
+    }
+
+    /**
+     * Generates candidate networks until one is connected. The seed of each
+     * candidate is drawn in order from one seed, so the same seed and parameters
+     * always return the same network.
+     *
+     * @param N         the number of nodes
+     * @param p         the number of Data Nodes in the network
+     * @param q         the number of data packets each Data Node has
+     * @param m         the storage capacity each Storage nodes has
+     * @param mode      how the nodes are placed
+     * @param seed      the seed that the seed of every candidate is drawn from
+     * @param candidate generates the candidate of a seed, whose graph may be left
+     *                  unbuilt once it is known to be disconnected
+     * @param <T>       the kind of network
+     * @return the first candidate that is connected or infeasible (in LARGEST_COMPONENT mode, only if the
+     * parameters are infeasible), or null if none is within N * 1000 + 1 tries
+     */
+    static <T extends Network> T firstConnected(int N, int p, int q, int m, GenerationMode mode, long seed,
+                                                LongFunction<T> candidate) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+
+        /* A kept component can be infeasible when the parameters are not, and is then re-generated */
+        final boolean retryInfeasible = mode == GenerationMode.LARGEST_COMPONENT && p * q <= (N - p) * m;
+        for (int attempts = 0; attempts <= N * 1000; attempts++) {
+            T network = candidate.apply(seeds.nextLong());
+            if (Metrics.ENABLED) {
+                Metrics.add(Metrics.Counter.GENERATION_ATTEMPTS, 1);
+            }
+
+            /* Infeasible candidates are returned so the caller can report them */
+            if (network.isFeasible() ? network.isConnected() : !retryInfeasible) {
+                return network;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Exits the program if no candidate network was connected, or if the one that
+     * was found shows that the parameters are infeasible.
+     *
+     * @param network  the candidate that was found, or null
+     * @param attempts the number of candidates that were generated
+     * @param <T>      the kind of network
+     * @return the network, which is connected and feasible
+     */
+    static <T extends Network> T requireConnected(T network, int attempts) {
+        /* Checks if the parameters in the program are feasible */
+        if (network != null && !network.isFeasible()) {
+            System.out.println("Invalid network parameters! Please re-run the program.");
+            System.out.println("Exiting the program...");
+            System.exit(0);
+        }
+
+        /*
+         * Checks if we were able to find a valid network within a reasonable range of
+         * attempts
+         */
+        if (network == null) {
+            System.out.printf("Failed to create a connected network after %d tries! Please re-run the program.\n",
+                    attempts);
+            System.out.println("Exiting the program...");
+            System.exit(0);
+        }
+
+        return network;
+    }
+
+    /**
+     * Draws a seed for a network whose caller did not choose one.
+     *
+     * @return a random seed
+     */
+    static long randomSeed() {
+        return new SplittableRandom().nextLong();
+    }
+}
@@ -0,0 +1,30 @@
+package com.grivera.generator;
+
+/**
+ * Represents how the nodes of a randomly generated Sensor Network are placed.
+ *
+ * @see SensorNetwork#of(double, double, int, double, int, int, int, int, int, int, GenerationMode)
+ */
+public enum GenerationMode {
+    /**
+     * Places every node uniformly at random and re-generates the whole network
+     * until it is connected.
+     */
+    REJECTION,
+
+    /**
+     * Places every node uniformly at random once, keeps the largest connected
+     * component and re-places only the remaining nodes within range of it, so
+     * the network is connected by construction.
+     */
+    CONNECTED,
+
+    /**
+     * Places every node uniformly at random once and keeps only the largest
+     * connected component, discarding the other nodes. The kept nodes are
+     * renumbered in order, so the network may have fewer nodes (and fewer Data
+     * and Storage Nodes) than requested, and is only re-generated if what is
+     * kept is infeasible.
+     */
+    LARGEST_COMPONENT
+}
@@ -0,0 +1,182 @@
+package com.grivera.generator;
+
+import com.grivera.util.DisjointSet;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Builds the adjacency graph of a network while tracking its connected components
+ * in a union-find, so connectivity is known without a separate traversal.
+ *
+ * <p>
+ * </p>
+ *
+ * Nodes are added one grid column at a time, from left to right, and each node is
+ * joined with the nodes in range that were already added. Since a cell is at least
+ * as wide as the largest range, a component with no node in the column just added
+ * can never reach a node in a later column. Once such a component exists alongside
+ * another one (or alongside nodes still to add), the network can never become
+ * connected, and a candidate network can be rejected before the rest of its graph
+ * is built.
+ */
+final class GraphSweep {
+
+    /**
+     * Represents the range test between two nodes.
+     */
+    @FunctionalInterface
+    interface RangeTest {
+        boolean inRange(int index1, int index2);
+    }
+
+    private final CsrGraph.Builder graph;
+    private final DisjointSet components;
+    private final RangeTest rangeTest;
+
+    /* The number of components among the nodes added so far */
+    private int openComponents;
+    private long checks;
+    private boolean stopped;
+
+    private GraphSweep(int nodeCount, RangeTest rangeTest) {
+        this.graph = new CsrGraph.Builder(nodeCount);
+        this.components = new DisjointSet(nodeCount);
+        this.rangeTest = rangeTest;
+    }
+
+    /**
+     * Sweeps the nodes of a network into its adjacency graph.
+     *
+     * @param width              the width of the network (in meters)
+     * @param length             the length of the network (in meters)
+     * @param cellSize           the minimum size of a grid cell (the largest transmission range)
+     * @param nodeCount          the number of nodes
+     * @param xs                 the x coordinate of each node (by index)
+     * @param ys                 the y coordinate of each node (by index)
+     * @param rangeTest          the test of whether two nodes are in range of each other
+     * @param stopIfDisconnected true to stop as soon as the network can no longer become connected
+     * @return the finished (or stopped) sweep
+     */
+    static GraphSweep run(double width, double length, double cellSize, int nodeCount,
+                          IntToDoubleFunction xs, IntToDoubleFunction ys, RangeTest rangeTest,
+                          boolean stopIfDisconnected) {
+        GraphSweep sweep = new GraphSweep(nodeCount, rangeTest);
+        SpatialGrid grid = new SpatialGrid(width, length, cellSize, nodeCount);
+
+        /* Bucket the nodes by column, keeping them in index order within each column */
+        final int columns = grid.getColumnCount();
+        int[] nodeColumns = new int[nodeCount];
+        int[] columnStarts = new int[columns + 1];
+        for (int index = 0; index < nodeCount; index++) {
+            nodeColumns[index] = grid.columnOf(xs.applyAsDouble(index));
+            columnStarts[nodeColumns[index] + 1]++;
+        }
+        for (int column = 0; column < columns; column++) {
+            columnStarts[column + 1] += columnStarts[column];
+        }
+        int[] order = new int[nodeCount];
+        int[] next = columnStarts.clone();
+        for (int index = 0; index < nodeCount; index++) {
+            order[next[nodeColumns[index]]++] = index;
+        }
+
+        /* Reuse the column array to mark the roots touching the current column */
+        int[] marks = nodeColumns;
+        Arrays.fill(marks, -1);
+        for (int column = 0; column < columns; column++) {
+            int start = columnStarts[column], end = columnStarts[column + 1];
+            for (int k = start; k < end; k++) {
+                int index = order[k];
+                double x = xs.applyAsDouble(index), y = ys.applyAsDouble(index);
+                sweep.openComponents++;
+                sweep.checks += grid.forEachCandidate(x, y, candidate -> sweep.join(index, candidate));
+                grid.insert(index, x, y);
+            }
+
+            if (stopIfDisconnected && sweep.hasClosedComponent(order, start, end, column, marks)
+                    && (sweep.openComponents > 1 || end < nodeCount)) {
+                sweep.stopped = true;
+                break;
+            }
+        }
+
+        if (Metrics.ENABLED) {
+            Metrics.add(Metrics.Counter.PAIR_CHECKS, sweep.checks);
+        }
+        return sweep;
+    }
+
+    private void join(int index1, int index2) {
+        if (this.rangeTest.inRange(index1, index2)) {
+            this.graph.addEdge(index1, index2); // Edges are non-directed
+            if (this.components.union(index1, index2)) {
+                this.openComponents--;
+            }
+        }
+    }
+
+    /* Checks if a component has no node in the column, so it can never grow again */
+    private boolean hasClosedComponent(int[] order, int start, int end, int column, int[] marks) {
+        if (start == end) {
+            return this.openComponents > 0;
+        } else if (this.openComponents == 1) {
+            return false;
+        }
+
+        int touching = 0;
+        for (int k = start; k < end; k++) {
+            int root = this.components.find(order[k]);
+            if (marks[root] != column) {
+                marks[root] = column;
+                touching++;
+            }
+        }
+        return this.openComponents > touching;
+    }
+
+    /**
+     * Checks if the sweep was stopped because the network can never become connected.
+     *
+     * @return true if and only if the sweep was stopped early; otherwise false
+     */
+    boolean isStopped() {
+        return this.stopped;
+    }
+
+    /**
+     * Checks if the swept network is connected.
+     *
+     * @return true if and only if every node is in one component; otherwise false
+     */
+    boolean isConnected() {
+        return !this.stopped && this.openComponents <= 1;
+    }
+
+    /**
+     * Returns the edges found by the sweep.
+     *
+     * @return the builder of the graph, which is incomplete if the sweep was stopped
+     */
+    CsrGraph.Builder getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Checks if a graph that was not built by a sweep (e.g. one loaded from a file)
+     * is connected, by joining the endpoints of its arcs in a union-find.
+     *
+     * @param graph the graph
+     * @return true if and only if every node is in one component; otherwise false
+     */
+    static boolean isConnected(CsrGraph graph) {
+        final int N = graph.getNodeCount();
+        DisjointSet components = new DisjointSet(N);
+        for (int node = 0; node < N && components.getSetCount() > 1; node++) {
+            for (int arc = graph.begin(node); arc < graph.end(node); arc++) {
+                components.union(node, graph.target(arc));
+            }
+        }
+        return components.getSetCount() <= 1;
+    }
+}
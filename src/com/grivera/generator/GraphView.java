@@ -0,0 +1,169 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.SensorNode;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Represents read-only views of a network's CSR graph as the sets and maps of
+ * Sensor Nodes that {@link Network} returns, so that neither kind of network
+ * copies its graph into collections.
+ */
+final class GraphView {
+
+    private final CsrGraph graph;
+    private final IntFunction<SensorNode> nodeAt;
+
+    /**
+     * Creates the views of a graph.
+     *
+     * @param graph  the graph, whose nodes are indexed by UUID - 1
+     * @param nodeAt the Sensor Node at an index (which may create a new view of it)
+     */
+    GraphView(CsrGraph graph, IntFunction<SensorNode> nodeAt) {
+        this.graph = graph;
+        this.nodeAt = nodeAt;
+    }
+
+    /**
+     * Finds the index of a node in the graph.
+     *
+     * @param o the node
+     * @return the UUID - 1 of the node, or -1 if it isn't a node of the graph
+     */
+    int indexOf(Object o) {
+        if (!(o instanceof SensorNode node)) {
+            return -1;
+        }
+
+        int index = node.getUuid() - 1;
+        if (index < 0 || index >= this.graph.getNodeCount()) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the neighbors of a node.
+     *
+     * @param node the node
+     * @return a view of its neighbors, or an empty set if it isn't a node of the graph
+     */
+    Set<SensorNode> getNeighbors(SensorNode node) {
+        int index = this.indexOf(node);
+        if (index < 0) {
+            return Set.of();
+        }
+        return new NeighborSet(index);
+    }
+
+    /**
+     * Returns the graph as an adjacency list.
+     *
+     * @return a view of every node and its neighbors
+     */
+    Map<SensorNode, Set<SensorNode>> getAdjacencyList() {
+        return new AdjacencyView();
+    }
+
+    /**
+     * Represents a read-only view of the neighbors of one node in the CSR graph.
+     */
+    private final class NeighborSet extends AbstractSet<SensorNode> {
+        private final int index;
+
+        private NeighborSet(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Iterator<SensorNode> iterator() {
+            return new Iterator<>() {
+                private int arc = graph.begin(index);
+
+                @Override
+                public boolean hasNext() {
+                    return this.arc < graph.end(index);
+                }
+
+                @Override
+                public SensorNode next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return nodeAt.apply(graph.target(this.arc++));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return graph.degree(this.index);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int other = indexOf(o);
+            return other >= 0 && graph.hasArc(this.index, other);
+        }
+    }
+
+    /**
+     * Represents a read-only view of the CSR graph as an adjacency list.
+     */
+    private final class AdjacencyView extends AbstractMap<SensorNode, Set<SensorNode>> {
+
+        @Override
+        public Set<Entry<SensorNode, Set<SensorNode>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<SensorNode, Set<SensorNode>>> iterator() {
+                    return new Iterator<>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.index < graph.getNodeCount();
+                        }
+
+                        @Override
+                        public Entry<SensorNode, Set<SensorNode>> next() {
+                            if (!this.hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            SensorNode node = nodeAt.apply(this.index);
+                            return new SimpleImmutableEntry<>(node, new NeighborSet(this.index++));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return graph.getNodeCount();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return graph.getNodeCount();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Set<SensorNode> get(Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : new NeighborSet(index);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.grivera.generator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents the counters and phase timers of the hot paths of every network.
+ *
+ * <p>
+ * </p>
+ *
+ * Metrics are off unless the JVM is started with -Dcom.grivera.generator.metrics=true.
+ * The flag is read once into a constant, so the JIT compiler removes every disabled
+ * check and the hot paths cost the same as without metrics. With
+ * -Dcom.grivera.generator.metrics.jfr=true as well, each phase is also recorded as a
+ * JDK Flight Recorder event, and the counters as a periodic one.
+ *
+ * <p>
+ * </p>
+ *
+ * Counters are shared by every network and thread, so take a {@link #snapshot()}
+ * before and after the code to measure and compare the two with
+ * {@link Snapshot#since(Snapshot)}.
+ */
+public final class Metrics {
+
+    static final boolean ENABLED = Boolean.getBoolean("com.grivera.generator.metrics");
+    static final boolean JFR_ENABLED = ENABLED && Boolean.getBoolean("com.grivera.generator.metrics.jfr");
+
+    /**
+     * Represents what is counted.
+     */
+    public enum Counter {
+        /** Dijkstra or A* searches run (one per min-cost query that wasn't cached, or per row of a cost matrix) */
+        SHORTEST_PATH_QUERIES,
+        /** Nodes offered to (or moved up in) the search heap or bucket queue */
+        HEAP_PUSHES,
+        /** Nodes settled by taking them from the search heap or bucket queue */
+        HEAP_POPS,
+        /** Arcs examined while settling nodes */
+        EDGE_RELAXATIONS,
+        /** Min-costs answered from the cost matrix or the cache */
+        COST_CACHE_HITS,
+        /** Min-costs that needed a search */
+        COST_CACHE_MISSES,
+        /** Candidate networks generated until one was connected */
+        GENERATION_ATTEMPTS,
+        /** Pairs of nearby nodes whose range was checked while building the graph */
+        PAIR_CHECKS
+    }
+
+    /**
+     * Represents what is timed.
+     */
+    public enum Phase {
+        /** Placing, typing and valuing the nodes of one candidate network */
+        GENERATION,
+        /** Building the adjacency graph (and its edge costs) of a network */
+        GRAPH_BUILD,
+        /** Checking if a loaded network is connected (built graphs are checked while they are built) */
+        CONNECTIVITY_CHECK,
+        /** Writing a network or its flow network into a file */
+        EXPORT
+    }
+
+    private static final LongAdder[] COUNTS = adders(Counter.values().length);
+    private static final LongAdder[] PHASE_NANOS = adders(Phase.values().length);
+    private static final LongAdder[] PHASE_CALLS = adders(Phase.values().length);
+
+    static {
+        if (JFR_ENABLED) {
+            FlightRecorder.addPeriodicEvent(CountersEvent.class, CountersEvent::emit);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Checks if metrics are being collected.
+     *
+     * @return true if the JVM was started with -Dcom.grivera.generator.metrics=true
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Adds to a counter. Callers check {@link #ENABLED} first, so counting in a
+     * loop can be done in a local variable and added once.
+     *
+     * @param counter the counter
+     * @param amount  the amount to add
+     */
+    static void add(Counter counter, long amount) {
+        COUNTS[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * Starts timing a phase, to be stopped with {@link #stop(Timer)} in a finally block.
+     *
+     * @param phase the phase
+     * @return the running timer, or null if metrics are disabled
+     */
+    static Timer start(Phase phase) {
+        return ENABLED ? new Timer(phase) : null;
+    }
+
+    /**
+     * Stops timing a phase and adds its time.
+     *
+     * @param timer the timer returned by {@link #start(Phase)}, which may be null
+     */
+    static void stop(Timer timer) {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Takes a snapshot of every counter and timer.
+     *
+     * @return the snapshot (all zeros if metrics are disabled)
+     */
+    public static Snapshot snapshot() {
+        long[] counts = new long[COUNTS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = COUNTS[i].sum();
+        }
+        long[] nanos = new long[PHASE_NANOS.length];
+        long[] calls = new long[PHASE_CALLS.length];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = PHASE_NANOS[i].sum();
+            calls[i] = PHASE_CALLS[i].sum();
+        }
+        return new Snapshot(counts, nanos, calls);
+    }
+
+    /**
+     * Sets every counter and timer back to zero.
+     */
+    public static void reset() {
+        for (LongAdder adder : COUNTS) {
+            adder.reset();
+        }
+        for (int i = 0; i < PHASE_NANOS.length; i++) {
+            PHASE_NANOS[i].reset();
+            PHASE_CALLS[i].reset();
+        }
+    }
+
+    /**
+     * Represents the timing of one run of a phase.
+     */
+    static final class Timer {
+        private final Phase phase;
+        private final long start;
+        private final PhaseEvent event;
+
+        private Timer(Phase phase) {
+            this.phase = phase;
+            this.event = JFR_ENABLED ? PhaseEvent.begin(phase) : null;
+            this.start = System.nanoTime();
+        }
+
+        private void stop() {
+            PHASE_NANOS[this.phase.ordinal()].add(System.nanoTime() - this.start);
+            PHASE_CALLS[this.phase.ordinal()].increment();
+            if (this.event != null) {
+                this.event.commit();
+            }
+        }
+    }
+
+    /**
+     * Represents the counters and timers at one point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long[] nanos;
+        private final long[] calls;
+
+        private Snapshot(long[] counts, long[] nanos, long[] calls) {
+            this.counts = counts;
+            this.nanos = nanos;
+            this.calls = calls;
+        }
+
+        public long getCount(Counter counter) {
+            return this.counts[counter.ordinal()];
+        }
+
+        /**
+         * Returns the total time spent in a phase.
+         *
+         * @param phase the phase
+         * @return the total time (in nanoseconds), summed over every thread
+         */
+        public long getNanos(Phase phase) {
+            return this.nanos[phase.ordinal()];
+        }
+
+        public long getCalls(Phase phase) {
+            return this.calls[phase.ordinal()];
+        }
+
+        /**
+         * Returns what was counted and timed between an earlier snapshot and this one.
+         *
+         * @param earlier the earlier snapshot
+         * @return the difference of the snapshots
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] counts = new long[this.counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = this.counts[i] - earlier.counts[i];
+            }
+            long[] nanos = new long[this.nanos.length];
+            long[] calls = new long[this.calls.length];
+            for (int i = 0; i < nanos.length; i++) {
+                nanos[i] = this.nanos[i] - earlier.nanos[i];
+                calls[i] = this.calls[i] - earlier.calls[i];
+            }
+            return new Snapshot(counts, nanos, calls);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("Metrics\n=================================\n");
+            for (Counter counter : Counter.values()) {
+                builder.append(String.format("%-22s%d\n", counter, this.getCount(counter)));
+            }
+            for (Phase phase : Phase.values()) {
+                builder.append(String.format("%-22s%.3f ms (%d calls)\n", phase,
+                        this.getNanos(phase) / 1e6, this.getCalls(phase)));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Represents one run of a phase in a Flight Recording.
+     */
+    @Name("com.grivera.generator.Phase")
+    @Label("Sensor Network Phase")
+    @Category("Sensor Network")
+    private static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        static PhaseEvent begin(Phase phase) {
+            PhaseEvent event = new PhaseEvent();
+            event.phase = phase.name();
+            event.begin();
+            return event;
+        }
+    }
+
+    /**
+     * Represents the counters in a Flight Recording, emitted once per second.
+     */
+    @Name("com.grivera.generator.Counters")
+    @Label("Sensor Network Counters")
+    @Category("Sensor Network")
+    @Description("The totals of the Metrics counters so far")
+    @Period("1 s")
+    private static final class CountersEvent extends Event {
+        @Label("Shortest Path Queries")
+        long shortestPathQueries;
+        @Label("Heap Pushes")
+        long heapPushes;
+        @Label("Heap Pops")
+        long heapPops;
+        @Label("Edge Relaxations")
+        long edgeRelaxations;
+        @Label("Cost Cache Hits")
+        long costCacheHits;
+        @Label("Cost Cache Misses")
+        long costCacheMisses;
+        @Label("Generation Attempts")
+        long generationAttempts;
+        @Label("Pair Checks")
+        long pairChecks;
+
+        static void emit() {
+            Snapshot snapshot = snapshot();
+            CountersEvent event = new CountersEvent();
+            event.shortestPathQueries = snapshot.getCount(Counter.SHORTEST_PATH_QUERIES);
+            event.heapPushes = snapshot.getCount(Counter.HEAP_PUSHES);
+            event.heapPops = snapshot.getCount(Counter.HEAP_POPS);
+            event.edgeRelaxations = snapshot.getCount(Counter.EDGE_RELAXATIONS);
+            event.costCacheHits = snapshot.getCount(Counter.COST_CACHE_HITS);
+            event.costCacheMisses = snapshot.getCount(Counter.COST_CACHE_MISSES);
+            event.generationAttempts = snapshot.getCount(Counter.GENERATION_ATTEMPTS);
+            event.pairChecks = snapshot.getCount(Counter.PAIR_CHECKS);
+            event.commit();
+        }
+    }
+}
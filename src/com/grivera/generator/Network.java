@@ -1,5 +1,7 @@
 package com.grivera.generator;
 
+import com.grivera.generator.flow.ArcPruning;
+import com.grivera.generator.flow.FlowSolution;
 import com.grivera.generator.sensors.DataNode;
 import com.grivera.generator.sensors.SensorNode;
 import com.grivera.generator.sensors.StorageNode;
@@ -7,6 +9,8 @@ import com.grivera.generator.sensors.TransitionNode;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 
 /**
@@ -20,6 +24,17 @@ public interface Network {
 
     int getStorageCapacity();
 
+    /**
+     * Returns the seed this network was generated from, which (with the same
+     * parameters) generates the same nodes again. A LARGEST_COMPONENT network
+     * may have fewer nodes than it was generated with; its saved file records
+     * the requested N, p and s as well.
+     *
+     * @return the seed, or empty if the network was loaded from a file that doesn't
+     *         record one (or an older LARGEST_COMPONENT file, which can't be regenerated)
+     */
+    OptionalLong getSeed();
+
     List<SensorNode> getSensorNodes();
     int getSensorNodeCount();
     List<DataNode> getDataNodes();
@@ -58,10 +73,70 @@ public interface Network {
      * @param from the starting sensor node
      * @param to   the ending sensor node
      * @return a list of the sensor nodes in the min-cost path between the from and
-     *         to sensor nodes
+     *         to sensor nodes (or an empty list if to is unreachable)
      */
     List<SensorNode> getMinCostPath(SensorNode from, SensorNode to);
 
+    /**
+     * Returns the min-cost of sending one data packet from each Data Node to each
+     * Storage Node.
+     *
+     * @return a p by s matrix where [i][j] is the min-cost from the Data Node with ID
+     *         i + 1 to the Storage Node with ID j + 1 (or Integer.MAX_VALUE if it
+     *         is unreachable)
+     */
+    int[][] getCostMatrix();
+
+    /**
+     * Chooses the priority queue that the min-cost searches (and the DN -> SN cost
+     * matrix) use, which is {@link PathEngine#HEAP} by default.
+     *
+     * @param engine the priority queue to search with
+     */
+    void setPathEngine(PathEngine engine);
+
+    PathEngine getPathEngine();
+
+    /**
+     * Chooses whether {@link #calculateMinCost(SensorNode, SensorNode)} and
+     * {@link #getMinCostPath(SensorNode, SensorNode)} run A* searches, which head
+     * toward the target using a lower bound on the energy left to reach it (from
+     * the straight-line distance), so they settle far fewer nodes than a Dijkstra
+     * search on large networks. The min-costs are the same either way, but a path
+     * may be a different one of equal cost. The DN -> SN cost matrix always uses
+     * full searches, since each one reaches every Storage Node at once.
+     *
+     * @param goalDirected true to run A* searches; false (the default) to run Dijkstra searches
+     */
+    void setGoalDirectedQueries(boolean goalDirected);
+
+    boolean hasGoalDirectedQueries();
+
+    /**
+     * Builds a contraction hierarchy over the weighted graph, so that
+     * {@link #calculateMinCost(SensorNode, SensorNode)} and
+     * {@link #getMinCostPath(SensorNode, SensorNode)} answer by searching only a
+     * few hundred nodes instead of (a large part of) the network. It pays off when
+     * many queries run on a network that doesn't change, and it is dropped once
+     * the cost model (i.e. the bits per packet) changes. The min-costs are the same
+     * as without it, but a path may be a different one of equal cost.
+     *
+     * @return the build time, size and memory of the hierarchy
+     */
+    ContractionStats buildContractionHierarchy();
+
+    /**
+     * Returns what building the contraction hierarchy cost.
+     *
+     * @return the stats, or empty if no hierarchy is in use
+     */
+    Optional<ContractionStats> getContractionStats();
+
+    /**
+     * Drops the contraction hierarchy, freeing its memory.
+     */
+    void clearContractionHierarchy();
+
     /**
      * Calculates the cost of a given path.
      *
@@ -71,7 +146,8 @@ public interface Network {
     int calculateCostOfPath(List<SensorNode> path);
 
     /**
-     * Saves the network into a .sn file format.
+     * Saves the network into a .sn file format, or into the binary .snb
+     * file format if the file name ends in .snb.
      *
      * @param fileName the path to the file to save to
      */
@@ -85,9 +161,59 @@ public interface Network {
      * @param fileName the path to the file to save to
      */
     void saveAsCsInp(String fileName);
+
+    /**
+     * Saves the network in the <b>DIMAC</b> format
+     * that can be used for the min-cost flow program
+     * <a href="https://github.com/iveney/cs2">CS2</a>,
+     * compressed with gzip if the file name ends in .gz.
+     *
+     * @param fileName        the path to the file to save to
+     * @param includeComments true to label the nodes and arcs with comment lines
+     *                        (which roughly doubles the size of the file)
+     */
+    void saveAsCsInp(String fileName, boolean includeComments);
+
+    /**
+     * Saves the network in the <b>DIMAC</b> format without the DN -> SN arcs that
+     * cannot change the max total profit, since both the size of the file and the
+     * time to solve it grow with the number of arcs.
+     *
+     * @param fileName        the path to the file to save to
+     * @param includeComments true to label the nodes and arcs with comment lines
+     * @param pruning         which DN -> SN arcs to leave out
+     */
+    void saveAsCsInp(String fileName, boolean includeComments, ArcPruning pruning);
+
+    /**
+     * Solves the same min-cost flow problem that {@link #saveAsCsInp(String)} saves,
+     * without running the external CS2 program.
+     *
+     * @return the assignment of packets to Storage Nodes with the max total profit
+     */
+    FlowSolution solveMaxProfit();
+
+    /**
+     * Solves the same min-cost flow problem that
+     * {@link #saveAsCsInp(String, boolean, ArcPruning)} saves, without running the
+     * external CS2 program.
+     *
+     * @param pruning which DN -> SN arcs to leave out
+     * @return the assignment of packets to Storage Nodes with the max total profit
+     */
+    FlowSolution solveMaxProfit(ArcPruning pruning);
     void setOverflowPackets(int overflowPackets);
     void setStorageCapacity(int storageCapacity);
     boolean canSendPackets(DataNode dn, StorageNode sn, int packets);
+
+    /**
+     * Sends packets by updating the nodes of this network, so only one run can use
+     * the network at a time. Runs that share a network use a {@link PacketState} instead.
+     *
+     * @param dn      the Data Node to send from
+     * @param sn      the Storage Node to send to
+     * @param packets the number of packets
+     */
     void sendPackets(DataNode dn, StorageNode sn, int packets);
     void resetPackets();
     int calculateProfitOf(DataNode from, StorageNode to);
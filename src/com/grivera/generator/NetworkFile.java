@@ -0,0 +1,576 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.SensorNode;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents the contents of a saved network, either a text .sn file or a
+ * binary .snb file.
+ *
+ * <p>
+ * </p>
+ *
+ * The .sn file follows the following format:
+ * <p>
+ * </p>
+ * width length transmission_range
+ * <p>
+ * data_packets_per_node storage_capacity_per_node
+ * <p>
+ * total_nodes [seed min_packet_value max_packet_value mode requested_nodes requested_p requested_s]
+ * <p>
+ * (d/s/t) x y [packet_value]
+ * <p>
+ * ...
+ * <p>
+ * </p>
+ *
+ * The optional tokens after total_nodes record how a generated network was
+ * generated (see {@link Generation}). Older files leave out the requested
+ * counts, which then are the counts of the saved nodes.
+ *
+ * <p>
+ * </p>
+ *
+ * The .snb file is big-endian and stores the nodes as columns instead of one
+ * line per node:
+ * <p>
+ * </p>
+ * magic version flags
+ * <p>
+ * width length transmission_range data_packets_per_node storage_capacity_per_node bits_per_packet
+ * <p>
+ * total_nodes
+ * <p>
+ * (optional) seed min_packet_value max_packet_value mode requested_nodes requested_p requested_s
+ * <p>
+ * x[N] y[N] packet_value[N] type[N]
+ * <p>
+ * (optional) arc_count offsets[N + 1] targets[arc_count] weights[arc_count]
+ * <p>
+ * (optional) p s cost[p * s]
+ * <p>
+ * </p>
+ *
+ * The optional sections hold the CSR adjacency graph and the DN -> SN cost
+ * matrix, so loading them skips recomputing either. Their costs are only valid
+ * for the bits per packet they were saved with.
+ */
+final class NetworkFile {
+
+    static final String BINARY_EXTENSION = ".snb";
+
+    private static final int MAGIC = 0x534E4246; // "SNBF"
+    private static final int VERSION = 3;
+    private static final int HAS_GRAPH = 1;
+    private static final int HAS_COST_MATRIX = 1 << 1;
+    private static final int HAS_GENERATION = 1 << 2;
+
+    /* magic, version, flags, 3 doubles, 3 ints and the node count */
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + 3 * Double.BYTES + 4 * Integer.BYTES;
+
+    /* seed, 2 packet values and the mode (only in version 2+ files with HAS_GENERATION) */
+    private static final int GENERATION_BYTES = Long.BYTES + 3 * Integer.BYTES;
+
+    /* the requested N, p and s, after the generation in version 3+ files */
+    private static final int REQUESTED_COUNT_BYTES = 3 * Integer.BYTES;
+
+    final double width, length, transmissionRange;
+    final int dataPacketCount, storageCapacity, bitsPerPacket;
+    final NodeColumns nodes;
+
+    /* Null if the file doesn't record how the network was generated */
+    final Generation generation;
+
+    /* Either may be null if the section is not in the file */
+    final CsrGraph graph;
+    final int[][] costMatrix;
+
+    NetworkFile(double width, double length, double transmissionRange, int dataPacketCount, int storageCapacity,
+                int bitsPerPacket, NodeColumns nodes, Generation generation, CsrGraph graph, int[][] costMatrix) {
+        this.width = width;
+        this.length = length;
+        this.transmissionRange = transmissionRange;
+        this.dataPacketCount = dataPacketCount;
+        this.storageCapacity = storageCapacity;
+        this.bitsPerPacket = bitsPerPacket;
+        this.nodes = nodes;
+        this.generation = generation;
+        this.graph = graph;
+        this.costMatrix = costMatrix;
+    }
+
+    /**
+     * Reads a .sn file, or an .snb file if the file name ends in .snb.
+     *
+     * @param fileName the path to the file
+     * @return the contents of the file
+     * @throws IllegalArgumentException if the file doesn't exist, is empty or is invalid
+     */
+    static NetworkFile read(String fileName) {
+        File file = new File(fileName);
+        if (!file.exists()) {
+            throw new IllegalArgumentException(String.format("File \"%s\" doesn't exist!", fileName));
+        }
+
+        try {
+            if (fileName.endsWith(BINARY_EXTENSION)) {
+                return readBinary(file.toPath());
+            }
+            return readText(file.toPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid file provided: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a .sn file.
+     *
+     * @param path the path to the .sn file
+     * @return the contents of the file (without a graph or cost matrix)
+     * @throws IOException if the file cannot be read or has an invalid line
+     * @throws IllegalArgumentException if the file is empty
+     */
+    static NetworkFile readText(Path path) throws IOException {
+        try (SnFileReader reader = new SnFileReader(path)) {
+            if (!reader.hasNext()) {
+                throw new IllegalArgumentException(String.format("File \"%s\" is empty!", path));
+            }
+
+            double width = reader.nextDouble();
+            double length = reader.nextDouble();
+            double transmissionRange = reader.nextDouble();
+            reader.nextLine();
+
+            int dataPacketCount = reader.nextInt();
+            int storageCapacity = reader.nextInt();
+            reader.nextLine();
+
+            int N = reader.nextInt();
+            if (N < 0) {
+                throw new IOException(String.format("Invalid node count %d!", N));
+            }
+
+            Generation generation = reader.hasNextOnLine() ? readGeneration(reader) : null;
+            reader.nextLine();
+            int dataNodeCount = 0, storageNodeCount = 0;
+
+            NodeColumns nodes = new NodeColumns(new byte[N], new double[N], new double[N], new int[N]);
+            byte type;
+            for (int i = 0; i < N; i++) {
+                type = (byte) reader.nextChar();
+                if (type != NodeColumns.DATA && type != NodeColumns.STORAGE && type != NodeColumns.TRANSITION) {
+                    throw reader.error("a node type of d, s or t");
+                }
+                nodes.types[i] = type;
+                if (type == NodeColumns.DATA) {
+                    dataNodeCount++;
+                } else if (type == NodeColumns.STORAGE) {
+                    storageNodeCount++;
+                }
+                nodes.xs[i] = reader.nextDouble();
+                nodes.ys[i] = reader.nextDouble();
+
+                /* Storage and Transition Nodes may still have a (ignored) fourth column */
+                if (type == NodeColumns.DATA) {
+                    nodes.values[i] = reader.nextInt();
+                } else if (reader.hasNextOnLine()) {
+                    reader.skip();
+                }
+                reader.endLine();
+            }
+
+            /* Older files don't record the requested counts, so they are the saved ones (if they can be) */
+            if (generation != null && generation.nodeCount < 0) {
+                generation = Generation.ofSaved(generation.seed, generation.minValue, generation.maxValue,
+                        generation.mode, N, dataNodeCount, storageNodeCount);
+            }
+
+            return new NetworkFile(width, length, transmissionRange, dataPacketCount, storageCapacity,
+                    SensorNode.getBitsPerPacket(), nodes, generation, null, null);
+        }
+    }
+
+    /**
+     * Reads the tokens after the node count that record how the network was generated.
+     *
+     * @param reader the reader, positioned after the node count
+     * @return the generation (whose requested counts are -1 if the file leaves
+     *         them out), or null if the tokens are something else (e.g. the
+     *         battery capacity some older files have), which is ignored
+     */
+    private static Generation readGeneration(SnFileReader reader) {
+        try {
+            long seed = reader.nextLong();
+            int minValue = reader.nextInt();
+            int maxValue = reader.nextInt();
+            GenerationMode mode = GenerationMode.valueOf(reader.next());
+            if (!reader.hasNextOnLine()) {
+                return new Generation(seed, minValue, maxValue, mode, -1, -1, -1);
+            }
+            return new Generation(seed, minValue, maxValue, mode, reader.nextInt(), reader.nextInt(),
+                    reader.nextInt());
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads an .snb file by mapping it into memory and copying it onto the heap.
+     *
+     * @param path the path to the .snb file
+     * @return the contents of the file
+     * @throws IOException if the file cannot be read or is not a valid .snb file
+     */
+    static NetworkFile readBinary(Path path) throws IOException {
+        Mapped file = map(path);
+        NodeColumns nodes = new NodeColumns(toArray(file.types), toArray(file.xs), toArray(file.ys),
+                toArray(file.values));
+        return new NetworkFile(file.width, file.length, file.transmissionRange, file.dataPacketCount,
+                file.storageCapacity, file.bitsPerPacket, nodes, file.generation, file.graph == null ? null : file.graph.toHeap(),
+                file.costMatrix);
+    }
+
+    /**
+     * Maps an .snb file into memory without copying its node columns or graph
+     * onto the heap. Each section is mapped on its own, so only a single column
+     * has to fit in one mapping (2 GiB).
+     *
+     * @param path the path to the .snb file
+     * @return the contents of the file, backed by the file
+     * @throws IOException if the file cannot be read or is not a valid .snb file
+     */
+    static Mapped map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = 0;
+            ByteBuffer header = map(channel, position, HEADER_BYTES);
+            position += HEADER_BYTES;
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not an .snb file");
+            }
+            int version = header.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(String.format("Unsupported .snb version %d", version));
+            }
+            int flags = header.getInt();
+
+            double width = header.getDouble();
+            double length = header.getDouble();
+            double transmissionRange = header.getDouble();
+            int dataPacketCount = header.getInt();
+            int storageCapacity = header.getInt();
+            int bitsPerPacket = header.getInt();
+
+            int nodeCount = checkCount(header.getInt());
+
+            /* Version 1 files never record how the network was generated */
+            boolean hasGeneration = version >= 2 && (flags & HAS_GENERATION) != 0;
+            long seed = 0;
+            int minValue = 0, maxValue = 0;
+            GenerationMode mode = null;
+            int[] requestedCounts = null;
+            if (hasGeneration) {
+                ByteBuffer section = map(channel, position, GENERATION_BYTES);
+                position += GENERATION_BYTES;
+                seed = section.getLong();
+                minValue = section.getInt();
+                maxValue = section.getInt();
+                int ordinal = section.getInt();
+                if (ordinal < 0 || ordinal >= GenerationMode.values().length) {
+                    throw new IOException(String.format("Invalid generation mode %d", ordinal));
+                }
+                mode = GenerationMode.values()[ordinal];
+
+                /* Version 2 files leave out the requested counts */
+                if (version >= 3) {
+                    section = map(channel, position, REQUESTED_COUNT_BYTES);
+                    position += REQUESTED_COUNT_BYTES;
+                    requestedCounts = new int[]{section.getInt(), section.getInt(), section.getInt()};
+                }
+            }
+
+            DoubleBuffer xs = map(channel, position, (long) nodeCount * Double.BYTES).asDoubleBuffer();
+            position += (long) nodeCount * Double.BYTES;
+            DoubleBuffer ys = map(channel, position, (long) nodeCount * Double.BYTES).asDoubleBuffer();
+            position += (long) nodeCount * Double.BYTES;
+            IntBuffer values = map(channel, position, (long) nodeCount * Integer.BYTES).asIntBuffer();
+            position += (long) nodeCount * Integer.BYTES;
+            ByteBuffer types = map(channel, position, nodeCount);
+            position += nodeCount;
+            int dataNodeCount = 0, storageNodeCount = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                byte type = types.get(i);
+                if (type == NodeColumns.DATA) {
+                    dataNodeCount++;
+                } else if (type == NodeColumns.STORAGE) {
+                    storageNodeCount++;
+                } else if (type != NodeColumns.TRANSITION) {
+                    throw new IOException(String.format("Invalid node type %d", type));
+                }
+            }
+
+            Generation generation = null;
+            if (requestedCounts != null) {
+                generation = new Generation(seed, minValue, maxValue, mode, requestedCounts[0], requestedCounts[1],
+                        requestedCounts[2]);
+            } else if (hasGeneration) {
+                generation = Generation.ofSaved(seed, minValue, maxValue, mode, nodeCount, dataNodeCount,
+                        storageNodeCount);
+            }
+
+            CsrGraph graph = null;
+            if ((flags & HAS_GRAPH) != 0) {
+                int arcCount = checkCount(map(channel, position, Integer.BYTES).getInt());
+                position += Integer.BYTES;
+                IntBuffer offsets = map(channel, position, (nodeCount + 1L) * Integer.BYTES).asIntBuffer();
+                position += (nodeCount + 1L) * Integer.BYTES;
+                IntBuffer targets = map(channel, position, (long) arcCount * Integer.BYTES).asIntBuffer();
+                position += (long) arcCount * Integer.BYTES;
+                IntBuffer weights = map(channel, position, (long) arcCount * Integer.BYTES).asIntBuffer();
+                position += (long) arcCount * Integer.BYTES;
+                try {
+                    graph = CsrGraph.of(offsets, targets, weights);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Truncated or corrupt .snb file");
+                }
+            }
+
+            int[][] costMatrix = null;
+            if ((flags & HAS_COST_MATRIX) != 0) {
+                ByteBuffer size = map(channel, position, 2 * Integer.BYTES);
+                position += 2 * Integer.BYTES;
+                int p = checkCount(size.getInt());
+                int s = checkCount(size.getInt());
+                IntBuffer costs = map(channel, position, (long) p * s * Integer.BYTES).asIntBuffer();
+                costMatrix = new int[p][s];
+                for (int i = 0; i < p; i++) {
+                    costs.get(costMatrix[i]);
+                }
+            }
+
+            return new Mapped(width, length, transmissionRange, dataPacketCount, storageCapacity, bitsPerPacket,
+                    generation, types, xs, ys, values, graph, costMatrix);
+        }
+    }
+
+    /**
+     * Writes the nodes into a .sn file, replacing the file if it exists once the
+     * new one is complete.
+     *
+     * @param path the path to the .sn file
+     * @throws IOException if the file cannot be written
+     */
+    void writeText(Path path) throws IOException {
+        Path temp = temporaryFile(path);
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.EXPORT);
+        try {
+            try (PrintWriter pw = new PrintWriter(temp.toFile())) {
+                pw.printf("%f %f %f\n", this.width, this.length, this.transmissionRange); // X, Y, Tr
+                pw.printf("%d %d\n", this.dataPacketCount, this.storageCapacity); // q m
+                if (this.generation == null) {
+                    pw.printf("%d\n", this.nodes.size()); // N
+                } else {
+                    pw.printf("%d %d %d %d %s %d %d %d\n", this.nodes.size(), this.generation.seed,
+                            this.generation.minValue, this.generation.maxValue, this.generation.mode,
+                            this.generation.nodeCount, this.generation.dataNodeCount,
+                            this.generation.storageNodeCount); // N seed Vl Vh mode requested N p s
+                }
+
+                for (int i = 0; i < this.nodes.size(); i++) {
+                    if (this.nodes.types[i] == NodeColumns.DATA) {
+                        pw.printf("%c %f %f %d\n", 'd', this.nodes.xs[i], this.nodes.ys[i], this.nodes.values[i]);
+                    } else {
+                        pw.printf("%c %f %f\n", (char) this.nodes.types[i], this.nodes.xs[i], this.nodes.ys[i]);
+                    }
+                }
+                if (pw.checkError()) {
+                    throw new IOException("Failed to write " + path);
+                }
+            }
+            replace(temp, path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            Metrics.stop(timer);
+        }
+    }
+
+    /**
+     * Writes the contents into an .snb file, replacing the file if it exists once
+     * the new one is complete (so a network mapped from it can be saved over it).
+     *
+     * @param path the path to the .snb file
+     * @throws IOException if the file cannot be written
+     */
+    void writeBinary(Path path) throws IOException {
+        int flags = (this.graph != null ? HAS_GRAPH : 0) | (this.costMatrix != null ? HAS_COST_MATRIX : 0)
+                | (this.generation != null ? HAS_GENERATION : 0);
+        Path temp = temporaryFile(path);
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.EXPORT);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(flags);
+
+                out.writeDouble(this.width);
+                out.writeDouble(this.length);
+                out.writeDouble(this.transmissionRange);
+                out.writeInt(this.dataPacketCount);
+                out.writeInt(this.storageCapacity);
+                out.writeInt(this.bitsPerPacket);
+
+                out.writeInt(this.nodes.size());
+                if (this.generation != null) {
+                    out.writeLong(this.generation.seed);
+                    out.writeInt(this.generation.minValue);
+                    out.writeInt(this.generation.maxValue);
+                    out.writeInt(this.generation.mode.ordinal());
+                    out.writeInt(this.generation.nodeCount);
+                    out.writeInt(this.generation.dataNodeCount);
+                    out.writeInt(this.generation.storageNodeCount);
+                }
+                for (double x : this.nodes.xs) {
+                    out.writeDouble(x);
+                }
+                for (double y : this.nodes.ys) {
+                    out.writeDouble(y);
+                }
+                for (int value : this.nodes.values) {
+                    out.writeInt(value);
+                }
+                out.write(this.nodes.types);
+
+                if (this.graph != null) {
+                    out.writeInt(this.graph.getArcCount());
+                    for (int node = 0; node <= this.graph.getNodeCount(); node++) {
+                        out.writeInt(node < this.graph.getNodeCount() ? this.graph.begin(node)
+                                : this.graph.getArcCount());
+                    }
+                    for (int arc = 0; arc < this.graph.getArcCount(); arc++) {
+                        out.writeInt(this.graph.target(arc));
+                    }
+                    for (int arc = 0; arc < this.graph.getArcCount(); arc++) {
+                        out.writeInt(this.graph.weight(arc));
+                    }
+                }
+
+                if (this.costMatrix != null) {
+                    out.writeInt(this.costMatrix.length);
+                    out.writeInt(this.costMatrix.length == 0 ? 0 : this.costMatrix[0].length);
+                    for (int[] row : this.costMatrix) {
+                        for (int cost : row) {
+                            out.writeInt(cost);
+                        }
+                    }
+                }
+            }
+            replace(temp, path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            Metrics.stop(timer);
+        }
+    }
+
+    /* The file a network is written into before it replaces the file at the path */
+    private static Path temporaryFile(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /*
+     * Replaces the file in one step, so that a network mapped from the file (which
+     * may be the one being saved) keeps reading the old contents, and an
+     * interrupted save never leaves a half-written file
+     */
+    private static void replace(Path temp, Path path) throws IOException {
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /* Maps a read-only section of the file, rejecting sections past its end */
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (position + size > channel.size()) {
+            throw new IOException("Truncated or corrupt .snb file");
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    private static int checkCount(int count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Truncated or corrupt .snb file");
+        }
+        return count;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] values = new byte[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    private static double[] toArray(DoubleBuffer buffer) {
+        double[] values = new double[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        int[] values = new int[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    /**
+     * Represents the contents of an .snb file whose node columns and graph are
+     * views of the mapped file instead of copies on the heap.
+     */
+    static final class Mapped {
+        final double width, length, transmissionRange;
+        final int dataPacketCount, storageCapacity, bitsPerPacket;
+        final Generation generation;
+        final ByteBuffer types;
+        final DoubleBuffer xs, ys;
+        final IntBuffer values;
+
+        /* Either may be null if the section is not in the file (the cost matrix is always copied) */
+        final CsrGraph graph;
+        final int[][] costMatrix;
+
+        private Mapped(double width, double length, double transmissionRange, int dataPacketCount,
+                       int storageCapacity, int bitsPerPacket, Generation generation, ByteBuffer types,
+                       DoubleBuffer xs, DoubleBuffer ys, IntBuffer values, CsrGraph graph, int[][] costMatrix) {
+            this.width = width;
+            this.length = length;
+            this.transmissionRange = transmissionRange;
+            this.dataPacketCount = dataPacketCount;
+            this.storageCapacity = storageCapacity;
+            this.bitsPerPacket = bitsPerPacket;
+            this.generation = generation;
+            this.types = types;
+            this.xs = xs;
+            this.ys = ys;
+            this.values = values;
+            this.graph = graph;
+            this.costMatrix = costMatrix;
+        }
+    }
+}
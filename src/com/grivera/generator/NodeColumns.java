@@ -0,0 +1,253 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.generator.sensors.StorageNode;
+import com.grivera.util.DisjointSet;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Represents the nodes of a network as columns (indexed by UUID - 1) instead of
+ * one object per node.
+ */
+final class NodeColumns {
+
+    static final byte DATA = 'd';
+    static final byte STORAGE = 's';
+    static final byte TRANSITION = 't';
+
+    /* How many uniformly random points are tried before placing a node next to another */
+    private static final int CONNECTED_PLACEMENT_ATTEMPTS = 10;
+
+    final byte[] types;
+    final double[] xs, ys;
+
+    /* The value of a data packet of each Data Node (0 for the other nodes) */
+    final int[] values;
+
+    NodeColumns(byte[] types, double[] xs, double[] ys, int[] values) {
+        this.types = types;
+        this.xs = xs;
+        this.ys = ys;
+        this.values = values;
+    }
+
+    int size() {
+        return this.types.length;
+    }
+
+    /**
+     * Copies the nodes of a network into columns.
+     *
+     * @param nodes the nodes (ordered by UUID)
+     * @return the columns
+     */
+    static NodeColumns of(List<SensorNode> nodes) {
+        final int N = nodes.size();
+        NodeColumns columns = new NodeColumns(new byte[N], new double[N], new double[N], new int[N]);
+        for (int index = 0; index < N; index++) {
+            SensorNode n = nodes.get(index);
+            columns.xs[index] = n.getX();
+            columns.ys[index] = n.getY();
+            if (n instanceof DataNode dn) {
+                columns.types[index] = DATA;
+                columns.values[index] = dn.getOverflowPacketValue();
+            } else {
+                columns.types[index] = n instanceof StorageNode ? STORAGE : TRANSITION;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Randomly places and chooses the type of every node.
+     *
+     * @param width     the width of the network (in meters)
+     * @param length    the length of the network (in meters)
+     * @param nodeCount the number of nodes
+     * @param tr        the transmission range of the nodes (in meters)
+     * @param p         the number of Data Nodes in the network
+     * @param s         the number of Storage Nodes in the network
+     * @param Vl        the minimum value of a data packet (inclusive)
+     * @param Vh        the maximum value of a data packet (inclusive)
+     * @param mode      how the nodes are placed
+     * @param rand      the random number generator to draw from
+     * @return the columns
+     */
+    static NodeColumns generate(double width, double length, int nodeCount, double tr, int p, int s,
+                                int Vl, int Vh, GenerationMode mode, SplittableRandom rand) {
+        /* Draw every node's values first, so the placement can be repaired before choosing the types */
+        int[] choices = new int[nodeCount];
+        double[] xs = new double[nodeCount];
+        double[] ys = new double[nodeCount];
+        int[] values = new int[nodeCount];
+        for (int index = 0; index < nodeCount; index++) {
+            choices[index] = rand.nextInt(1, 11);
+            xs[index] = width * rand.nextDouble();
+            ys[index] = length * rand.nextDouble();
+            values[index] = rand.nextInt(Vh - Vl + 1) + Vl;
+        }
+
+        if (mode == GenerationMode.CONNECTED) {
+            connectPlacement(width, length, tr, xs, ys, rand);
+        }
+
+        /* Choose p random nodes to be Generator Nodes, the rest are Storage Nodes */
+        byte[] types = new byte[nodeCount];
+        for (int index = 0; index < nodeCount; index++) {
+            if ((choices[index] < 4 && p > 0) || nodeCount - index <= p) {
+                types[index] = DATA;
+                p--;
+            } else if ((choices[index] < 8 && s > 0) || nodeCount - index - p - s <= 0) {
+                types[index] = STORAGE;
+                values[index] = 0;
+                s--;
+            } else {
+                types[index] = TRANSITION;
+                values[index] = 0;
+            }
+        }
+        NodeColumns columns = new NodeColumns(types, xs, ys, values);
+        if (mode == GenerationMode.LARGEST_COMPONENT) {
+            return columns.largestComponent(width, length, tr);
+        }
+        return columns;
+    }
+
+    /**
+     * Keeps only the nodes in the largest connected component, in their order.
+     *
+     * @param width  the width of the network (in meters)
+     * @param length the length of the network (in meters)
+     * @param tr     the transmission range of the nodes (in meters)
+     * @return the columns of the kept nodes (this if every node is kept)
+     */
+    NodeColumns largestComponent(double width, double length, double tr) {
+        final int nodeCount = this.size();
+        DisjointSet components = findComponents(width, length, tr, this.xs, this.ys);
+        if (components.getSetCount() <= 1) {
+            return this;
+        }
+
+        int largest = findLargest(components);
+        final int keptCount = components.sizeOf(largest);
+        NodeColumns kept = new NodeColumns(new byte[keptCount], new double[keptCount], new double[keptCount],
+                new int[keptCount]);
+        int k = 0;
+        for (int index = 0; index < nodeCount; index++) {
+            if (components.connected(index, largest)) {
+                kept.types[k] = this.types[index];
+                kept.xs[k] = this.xs[index];
+                kept.ys[k] = this.ys[index];
+                kept.values[k] = this.values[index];
+                k++;
+            }
+        }
+        return kept;
+    }
+
+    /* Finds the components of a placement, only checking nodes in the surrounding cells */
+    private static DisjointSet findComponents(double width, double length, double tr, double[] xs, double[] ys) {
+        final int nodeCount = xs.length;
+        DisjointSet components = new DisjointSet(nodeCount);
+        SpatialGrid grid = new SpatialGrid(width, length, tr + 0.0001, nodeCount);
+        for (int index = 0; index < nodeCount; index++) {
+            int index1 = index;
+            grid.forEachCandidate(xs[index], ys[index], index2 -> {
+                if (SensorNode.inRange(xs[index1], ys[index1], tr, xs[index2], ys[index2], tr)) {
+                    components.union(index1, index2);
+                }
+            });
+            grid.insert(index, xs[index], ys[index]);
+        }
+        return components;
+    }
+
+    /* Returns the first node of the largest component */
+    private static int findLargest(DisjointSet components) {
+        int largest = 0;
+        for (int index = 1; index < components.size(); index++) {
+            if (components.sizeOf(index) > components.sizeOf(largest)) {
+                largest = index;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Moves the nodes outside the largest connected component of a placement into
+     * range of that component, so the placement becomes connected while the
+     * largest component keeps its uniformly random positions.
+     *
+     * @param width  the width of the network (in meters)
+     * @param length the length of the network (in meters)
+     * @param tr     the transmission range of the nodes (in meters)
+     * @param xs     the x coordinates of the nodes (updated in place)
+     * @param ys     the y coordinates of the nodes (updated in place)
+     * @param rand   the random number generator to place the moved nodes with
+     */
+    private static void connectPlacement(double width, double length, double tr, double[] xs, double[] ys,
+                                         SplittableRandom rand) {
+        final int nodeCount = xs.length;
+        if (nodeCount == 0) {
+            return;
+        }
+
+        /* Find the components of the random placement */
+        DisjointSet components = findComponents(width, length, tr, xs, ys);
+        if (components.getSetCount() == 1) {
+            return;
+        }
+        int largest = findLargest(components);
+
+        /* Keep the largest component where it is */
+        SpatialGrid connectedGrid = new SpatialGrid(width, length, tr + 0.0001, nodeCount);
+        for (int index = 0; index < nodeCount; index++) {
+            if (components.connected(index, largest)) {
+                connectedGrid.insert(index, xs[index], ys[index]);
+            }
+        }
+
+        /* Re-place every other node within range of the connected nodes */
+        for (int index = 0; index < nodeCount; index++) {
+            if (components.connected(index, largest)) {
+                continue;
+            }
+
+            boolean placed = false;
+            for (int attempt = 0; attempt < CONNECTED_PLACEMENT_ATTEMPTS && !placed; attempt++) {
+                xs[index] = width * rand.nextDouble();
+                ys[index] = length * rand.nextDouble();
+                placed = isInRangeOfAny(connectedGrid, tr, xs, ys, xs[index], ys[index]);
+            }
+
+            if (!placed) {
+                /*
+                 * Fall back to stepping from the closest connected node towards the last random
+                 * point, which grows the component outwards into empty space instead of crowding it.
+                 * Clamping into the area can only move the point closer to that node.
+                 */
+                double targetX = xs[index], targetY = ys[index];
+                int anchor = connectedGrid.nearest(targetX, targetY, xs, ys);
+                double step = tr * (0.5 + 0.5 * rand.nextDouble());
+                double angle = Math.atan2(targetY - ys[anchor], targetX - xs[anchor]);
+                xs[index] = Math.min(Math.max(xs[anchor] + step * Math.cos(angle), 0), width);
+                ys[index] = Math.min(Math.max(ys[anchor] + step * Math.sin(angle), 0), length);
+            }
+
+            connectedGrid.insert(index, xs[index], ys[index]);
+        }
+    }
+
+    private static boolean isInRangeOfAny(SpatialGrid grid, double tr, double[] xs, double[] ys, double x, double y) {
+        boolean[] found = {false};
+        grid.forEachCandidate(x, y, index -> {
+            if (!found[0] && SensorNode.inRange(xs[index], ys[index], tr, x, y, tr)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+}
@@ -0,0 +1,117 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.StorageNode;
+
+import java.util.Arrays;
+
+/**
+ * Represents the packets sent during one run over a network, without changing the
+ * network's nodes.
+ *
+ * <p>
+ * </p>
+ *
+ * The packets left in each Data Node and the space used in each Storage Node are
+ * kept in arrays indexed by ID - 1, so many runs (e.g. different strategies or
+ * Monte-Carlo trials) can share one network, each with its own PacketState.
+ * A PacketState itself is not thread-safe: each run (or thread) creates its own.
+ */
+public final class PacketState {
+
+    private final int dataPacketCount;
+    private final int storageCapacity;
+    private final int[] packetsLeft;
+    private final int[] usedSpace;
+
+    /**
+     * Creates the state of a new run, where every Data Node has all of its
+     * packets and every Storage Node is empty.
+     *
+     * @param network the network to send the packets over
+     */
+    public PacketState(Network network) {
+        this.dataPacketCount = network.getDataPacketCount();
+        this.storageCapacity = network.getStorageCapacity();
+        this.packetsLeft = new int[network.getDataNodeCount()];
+        this.usedSpace = new int[network.getStorageNodeCount()];
+        this.reset();
+    }
+
+    private PacketState(PacketState other) {
+        this.dataPacketCount = other.dataPacketCount;
+        this.storageCapacity = other.storageCapacity;
+        this.packetsLeft = other.packetsLeft.clone();
+        this.usedSpace = other.usedSpace.clone();
+    }
+
+    public int getDataPacketCount() {
+        return this.dataPacketCount;
+    }
+
+    public int getStorageCapacity() {
+        return this.storageCapacity;
+    }
+
+    public int getPacketsLeft(DataNode dn) {
+        return this.packetsLeft[dn.getId() - 1];
+    }
+
+    public int getUsedSpace(StorageNode sn) {
+        return this.usedSpace[sn.getId() - 1];
+    }
+
+    public int getSpaceLeft(StorageNode sn) {
+        return this.storageCapacity - this.getUsedSpace(sn);
+    }
+
+    /**
+     * Tests whether a Data Node has the packets left and a Storage Node has the
+     * space left to send packets between them.
+     *
+     * @param dn      the Data Node to send from
+     * @param sn      the Storage Node to send to
+     * @param packets the number of packets
+     * @return true if and only if the packets can be sent; otherwise false
+     */
+    public boolean canSendPackets(DataNode dn, StorageNode sn, int packets) {
+        return this.getPacketsLeft(dn) - packets >= 0 && this.getUsedSpace(sn) + packets <= this.storageCapacity;
+    }
+
+    /**
+     * Sends packets from a Data Node to a Storage Node.
+     *
+     * @param dn      the Data Node to send from
+     * @param sn      the Storage Node to send to
+     * @param packets the number of packets
+     * @throws IllegalArgumentException if the packets cannot be sent
+     */
+    public void sendPackets(DataNode dn, StorageNode sn, int packets) {
+        if (!this.canSendPackets(dn, sn, packets)) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot send from %s (%d/%d packets left) -> %s (%d/%d space left)\n",
+                            dn.getName(), this.getPacketsLeft(dn), this.dataPacketCount,
+                            sn.getName(), this.getSpaceLeft(sn), this.storageCapacity));
+        }
+
+        this.packetsLeft[dn.getId() - 1] -= packets;
+        this.usedSpace[sn.getId() - 1] += packets;
+    }
+
+    /**
+     * Returns every packet to its Data Node.
+     */
+    public void reset() {
+        Arrays.fill(this.packetsLeft, this.dataPacketCount);
+        Arrays.fill(this.usedSpace, 0);
+    }
+
+    /**
+     * Copies the state, e.g. to try several ways of continuing a run.
+     *
+     * @return an independent copy of the state
+     */
+    public PacketState copy() {
+        return new PacketState(this);
+    }
+}
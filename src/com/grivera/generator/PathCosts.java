@@ -0,0 +1,334 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.util.LongIntCache;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Represents the min-cost queries over the weighted CSR graph of a network,
+ * whose nodes are the indices (UUID - 1) of the network's nodes.
+ *
+ * <p>
+ * </p>
+ *
+ * Queries are thread-safe: each thread searches with its own ShortestPaths,
+ * while the cache of min-costs and the DN -> SN cost matrix are shared. The
+ * edge costs are re-calculated the first time the graph is used after the cost
+ * model (i.e. the bits per packet) changes.
+ */
+final class PathCosts {
+
+    private final IntBinaryOperator cost;
+    private final IntToDoubleFunction xs, ys;
+    private final int[] dataIndices, storageIndices;
+
+    /* The version is written after the graph, so a thread that sees the new version sees the new graph */
+    private volatile CsrGraph graph;
+    private volatile int costModel;
+
+    private final ThreadLocal<ShortestPaths> searches = new ThreadLocal<>();
+    private final ThreadLocal<CostBound> bounds = new ThreadLocal<>();
+    private volatile PathEngine engine = PathEngine.HEAP;
+    private volatile boolean goalDirected;
+
+    /* Null unless built, and ignored once the graph is re-weighted */
+    private volatile ContractionHierarchy hierarchy;
+    private final ThreadLocal<ContractionHierarchy.Query> hierarchyQueries = new ThreadLocal<>();
+    private volatile LongIntCache cache = new LongIntCache();
+    private volatile int[][] costMatrix;
+
+    /**
+     * Creates the queries over a graph whose weights match the current cost model.
+     *
+     * @param graph          the weighted graph
+     * @param cost           calculates the weight of the arc from the first node to the second
+     * @param xs             the x coordinate of each node (by index)
+     * @param ys             the y coordinate of each node (by index)
+     * @param dataIndices    the index of each Data Node, by ID - 1
+     * @param storageIndices the index of each Storage Node, by ID - 1
+     */
+    PathCosts(CsrGraph graph, IntBinaryOperator cost, IntToDoubleFunction xs, IntToDoubleFunction ys,
+              int[] dataIndices, int[] storageIndices) {
+        this.graph = graph;
+        this.cost = cost;
+        this.xs = xs;
+        this.ys = ys;
+        this.dataIndices = dataIndices;
+        this.storageIndices = storageIndices;
+        this.costModel = SensorNode.getCostModelVersion();
+    }
+
+    /**
+     * Returns the weighted graph, re-calculating its weights first if the cost
+     * model changed since they were calculated.
+     *
+     * @return the up-to-date graph
+     */
+    CsrGraph getGraph() {
+        int version = SensorNode.getCostModelVersion();
+        if (this.costModel != version) {
+            synchronized (this) {
+                if (this.costModel != version) {
+                    this.graph = this.graph.withWeights(this.cost);
+                    this.clear();
+                    this.costModel = version;
+                }
+            }
+        }
+        return this.graph;
+    }
+
+    /**
+     * Calculates (or recalls) the cost of the min-cost path between two nodes.
+     *
+     * @param from the index of the starting node
+     * @param to   the index of the ending node
+     * @return the min-cost, or ShortestPaths.UNREACHABLE
+     */
+    int minCost(int from, int to) {
+        int[][] matrix = this.getCostMatrixIfPresent();
+        if (matrix != null) {
+            int dn = indexOf(this.dataIndices, from), sn = indexOf(this.storageIndices, to);
+            if (dn >= 0 && sn >= 0) {
+                if (Metrics.ENABLED) {
+                    Metrics.add(Metrics.Counter.COST_CACHE_HITS, 1);
+                }
+                return matrix[dn][sn];
+            }
+        }
+
+        /*
+         * Costs are never negative, so -1 marks a miss. The cache is read before the graph, and the
+         * graph is re-weighted before the cache is replaced, so the cost put into it is never older
+         */
+        long key = LongIntCache.pack(from, to);
+        LongIntCache cache = this.cache;
+        int cached;
+        synchronized (cache) {
+            cached = cache.getOrDefault(key, -1);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.add(cached >= 0 ? Metrics.Counter.COST_CACHE_HITS : Metrics.Counter.COST_CACHE_MISSES, 1);
+        }
+        if (cached >= 0) {
+            return cached;
+        }
+
+        int cost;
+        ContractionHierarchy.Query query = this.getHierarchyQuery();
+        if (query != null) {
+            cost = query.minCost(from, to);
+        } else {
+            ShortestPaths paths = this.getSearch();
+            paths.search(from, to, this.getBound());
+            cost = paths.distanceTo(to);
+        }
+        synchronized (cache) {
+            cache.put(key, cost);
+        }
+        return cost;
+    }
+
+    /**
+     * Finds the min-cost path between two nodes.
+     *
+     * @param from the index of the starting node
+     * @param to   the index of the ending node
+     * @return the indices from the start to the end, or an empty array if the end is unreachable
+     */
+    int[] minCostPath(int from, int to) {
+        ContractionHierarchy.Query query = this.getHierarchyQuery();
+        if (query != null) {
+            return query.minCostPath(from, to);
+        }
+
+        ShortestPaths paths = this.getSearch();
+        paths.search(from, to, this.getBound());
+        return paths.pathTo(to);
+    }
+
+    /**
+     * Returns the min-cost from every Data Node to every Storage Node, calculating
+     * it the first time. The matrix is shared, so callers must not modify it.
+     *
+     * @return the min-cost from the Data Node with ID i + 1 to the Storage Node with ID j + 1
+     */
+    int[][] getCostMatrix() {
+        int[][] matrix = this.getCostMatrixIfPresent();
+        if (matrix == null) {
+            synchronized (this) {
+                matrix = this.getCostMatrixIfPresent();
+                if (matrix == null) {
+                    matrix = this.initCostMatrix();
+                    this.costMatrix = matrix;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the cost matrix if it was already calculated (or loaded).
+     *
+     * @return the shared cost matrix, or null
+     */
+    int[][] getCostMatrixIfPresent() {
+        this.getGraph();
+        return this.costMatrix;
+    }
+
+    /**
+     * Uses a cost matrix that was calculated with the current cost model (e.g. a saved one).
+     *
+     * @param costMatrix the cost matrix
+     */
+    void setCostMatrix(int[][] costMatrix) {
+        this.costMatrix = costMatrix;
+    }
+
+    /**
+     * Chooses the priority queue of the searches. The min-costs don't depend on
+     * it, so the cached ones are kept.
+     *
+     * @param engine the priority queue to search with
+     * @throws NullPointerException if the engine is null
+     */
+    void setEngine(PathEngine engine) {
+        this.engine = Objects.requireNonNull(engine);
+    }
+
+    PathEngine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Chooses whether single min-cost queries run as A* searches, guided by a lower
+     * bound on the cost left to the target. The min-costs don't depend on it, but
+     * a path may be a different one of equal cost.
+     *
+     * @param goalDirected true to run A* searches; false to run Dijkstra searches
+     */
+    void setGoalDirected(boolean goalDirected) {
+        this.goalDirected = goalDirected;
+    }
+
+    boolean isGoalDirected() {
+        return this.goalDirected;
+    }
+
+    /**
+     * Builds a contraction hierarchy over the graph, which answers the min-cost
+     * queries from then on (until the cost model changes) instead of searches.
+     *
+     * @return what building the hierarchy cost
+     */
+    synchronized ContractionStats buildHierarchy() {
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(this.getGraph());
+        this.hierarchy = hierarchy;
+        return hierarchy.getStats();
+    }
+
+    /**
+     * Returns what building the current contraction hierarchy cost.
+     *
+     * @return the stats, or empty if there is no hierarchy (or it is out of date)
+     */
+    Optional<ContractionStats> getHierarchyStats() {
+        ContractionHierarchy hierarchy = this.hierarchy;
+        return hierarchy != null && hierarchy.getGraph() == this.getGraph()
+                ? Optional.of(hierarchy.getStats()) : Optional.empty();
+    }
+
+    /**
+     * Drops the contraction hierarchy, so min-cost queries search again.
+     */
+    void clearHierarchy() {
+        this.hierarchy = null;
+    }
+
+    /**
+     * Limits how many min-costs are remembered (besides the cost matrix),
+     * forgetting the oldest ones first.
+     *
+     * @param maxSize the maximum number of cached min-costs, or 0 for no limit
+     */
+    void setCacheSize(int maxSize) {
+        this.cache = new LongIntCache(maxSize);
+    }
+
+    /**
+     * Forgets every cached min-cost and the cost matrix.
+     */
+    void clear() {
+        /* A query that started before still puts its min-cost into the old cache, which nothing reads anymore */
+        this.cache = new LongIntCache(this.cache.getMaxSize());
+        this.costMatrix = null;
+    }
+
+    private int[][] initCostMatrix() {
+        int[][] matrix = new int[this.dataIndices.length][this.storageIndices.length];
+
+        /* One full search per Data Node reaches every Storage Node at once */
+        ShortestPaths paths = this.getSearch();
+        for (int dn = 0; dn < this.dataIndices.length; dn++) {
+            paths.search(this.dataIndices[dn], -1);
+            for (int sn = 0; sn < this.storageIndices.length; sn++) {
+                matrix[dn][sn] = paths.distanceTo(this.storageIndices[sn]);
+            }
+        }
+        return matrix;
+    }
+
+    /* Each thread keeps its own search, re-created if the graph was re-weighted or the engine changed */
+    private ShortestPaths getSearch() {
+        CsrGraph graph = this.getGraph();
+        PathEngine engine = this.engine;
+        ShortestPaths search = this.searches.get();
+        if (search == null || search.getGraph() != graph || search.getEngine() != engine) {
+            search = new ShortestPaths(graph, engine);
+            this.searches.set(search);
+        }
+        return search;
+    }
+
+    /* Each thread keeps its own hierarchy query, if the hierarchy matches the graph */
+    private ContractionHierarchy.Query getHierarchyQuery() {
+        ContractionHierarchy hierarchy = this.hierarchy;
+        if (hierarchy == null || hierarchy.getGraph() != this.getGraph()) {
+            return null;
+        }
+
+        ContractionHierarchy.Query query = this.hierarchyQueries.get();
+        if (query == null || query.getHierarchy() != hierarchy) {
+            query = hierarchy.new Query();
+            this.hierarchyQueries.set(query);
+        }
+        return query;
+    }
+
+    /* Each thread keeps its own bound too, since it remembers the target */
+    private CostBound getBound() {
+        if (!this.goalDirected) {
+            return null;
+        }
+
+        CsrGraph graph = this.getGraph();
+        CostBound bound = this.bounds.get();
+        if (bound == null || bound.getGraph() != graph) {
+            bound = new CostBound(graph, this.xs, this.ys);
+            this.bounds.set(bound);
+        }
+        return bound;
+    }
+
+    /* The indices of each type are in increasing order, so the ID - 1 of a node is found by binary search */
+    private static int indexOf(int[] indices, int index) {
+        int position = Arrays.binarySearch(indices, index);
+        return position < 0 ? -1 : position;
+    }
+}
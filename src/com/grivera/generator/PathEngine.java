@@ -0,0 +1,32 @@
+package com.grivera.generator;
+
+/**
+ * Represents the priority queue that the min-cost (Dijkstra) searches of a
+ * network use. Both find the same min-costs, but may pick different paths
+ * between equally cheap ones.
+ *
+ * @see Network#setPathEngine(PathEngine)
+ */
+public enum PathEngine {
+    /**
+     * Orders the nodes by cost in a binary heap, taking O(log N) time per node
+     * and arc whatever the arc costs are.
+     */
+    HEAP,
+
+    /**
+     * Orders the nodes by cost in a circular array with one bucket per cost
+     * (Dial's algorithm), which takes constant time per node and arc since the
+     * arc costs are small integers bounded by the transmission range. A search
+     * also scans one bucket per unit of its largest cost, and an A* search needs
+     * room for keys up to twice the largest arc cost ahead, so networks whose
+     * largest arc cost needs more than {@link #MAX_BUCKETS} / 2 buckets (e.g.
+     * after raising the bits per packet a lot) fall back to the heap.
+     */
+    BUCKET;
+
+    /**
+     * The most buckets a BUCKET search allocates.
+     */
+    public static final int MAX_BUCKETS = 1 << 20;
+}
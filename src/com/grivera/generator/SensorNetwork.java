@@ -1,16 +1,18 @@
 package com.grivera.generator;
 
+import com.grivera.generator.flow.ArcPruning;
+import com.grivera.generator.flow.FlowSolution;
+import com.grivera.generator.flow.MaxProfitFlow;
 import com.grivera.generator.sensors.DataNode;
 import com.grivera.generator.sensors.SensorNode;
 import com.grivera.generator.sensors.StorageNode;
 import com.grivera.generator.sensors.TransitionNode;
-import com.grivera.util.Pair;
-import com.grivera.util.Tuple;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * An implementation of a Network that contains Data and
@@ -24,15 +26,20 @@ public class SensorNetwork implements Network {
     private List<DataNode> dNodes;
     private List<StorageNode> sNodes;
     private List<TransitionNode> tNodes;
-    private Map<SensorNode, Set<SensorNode>> graph;
+    private CsrGraph graph;
+    private PathCosts costs;
 
-    private final Map<Pair<SensorNode, SensorNode>, Integer> costMap = new HashMap<>();
+    /* Null until known, for graphs loaded from a file */
+    private Boolean connected;
 
     private final double width, length;
     private int dataPacketCount;
     private int storageCapacity;
     private final double transmissionRange;
 
+    /* Null if the network was loaded from a file that doesn't record its generation */
+    private final Generation generation;
+
     /**
      * Constructor to create a Sensor Network
      *
@@ -48,24 +55,96 @@ public class SensorNetwork implements Network {
      * @param Vh the maximum value of a data packet (inclusive)
      */
     public SensorNetwork(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh) {
+        this(x, y, N, tr, p, q, s, m, Vl, Vh, GenerationMode.REJECTION);
+    }
+
+    /**
+     * Constructor to create a Sensor Network
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed
+     */
+    public SensorNetwork(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh,
+                         GenerationMode mode) {
+        this(x, y, N, tr, p, q, s, m, Vl, Vh, mode, Generation.randomSeed());
+    }
+
+    /**
+     * Constructor to create a Sensor Network from a seed, which places, types and
+     * values every node the same way for the same seed and parameters.
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed
+     * @param seed the seed of the random number generator
+     */
+    public SensorNetwork(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh,
+                         GenerationMode mode, long seed) {
+        this(x, y, N, tr, p, q, s, m, Vl, Vh, mode, seed, false);
+    }
+
+    /**
+     * Constructor to create a Sensor Network from a seed, or a candidate network
+     * whose graph is left unbuilt (and its costs unset) as soon as it is known to be
+     * disconnected, since such a candidate is only generated to be rejected.
+     *
+     * @param x         the width of the network (in meters)
+     * @param y         the length of the network (in meters)
+     * @param N         the number of nodes
+     * @param tr        the transmission range of the nodes (in meters)
+     * @param p         the number of Data Nodes in the network
+     * @param q         the number of data packets each Data Node has
+     * @param s         the number of Storage Nodes in the network
+     * @param m         the storage capacity each Storage nodes has
+     * @param Vl        the minimum value of a data packet (inclusive)
+     * @param Vh        the maximum value of a data packet (inclusive)
+     * @param mode      how the nodes are placed
+     * @param seed      the seed of the random number generator
+     * @param candidate true to stop building the graph of a disconnected (but feasible) network
+     */
+    private SensorNetwork(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh,
+                          GenerationMode mode, long seed, boolean candidate) {
         this.width = x;
         this.length = y;
         this.dataPacketCount = q;
         this.storageCapacity = m;
         this.transmissionRange = tr;
 
-        /* Used to separate each type of node for later use and retrieval */
         if (p + s > N) throw new IllegalArgumentException("Invalid SensorNetwork constructor parameters");
 
-        this.dNodes = new ArrayList<>(p);
-        this.sNodes = new ArrayList<>(s);
-        this.tNodes = new ArrayList<>(N - s - p);
-
         /*
          * Init the Sensor com.grivera.generator.Network to allow basic operations on it
          */
-        this.nodes = this.initNodes(N, p, s, Vl, Vh);
-        this.graph = this.initGraph(this.nodes);
+        this.generation = new Generation(seed, Vl, Vh, mode, N, p, s);
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.GENERATION);
+        try {
+            this.initNodes(this.generation.generate(x, y, tr));
+        } finally {
+            Metrics.stop(timer);
+        }
+
+        /* Infeasible candidates are kept whole so the caller can report them */
+        this.graph = this.initGraph(this.nodes, candidate && this.isFeasible());
+        if (this.graph != null) {
+            this.initCosts();
+        }
     }
 
     /**
@@ -82,7 +161,7 @@ public class SensorNetwork implements Network {
      * <p>
      * data_packets_per_node storage_capacity_per_node
      * <p>
-     * total_nodes battery_capacity_per_node
+     * total_nodes [seed min_packet_value max_packet_value mode requested_nodes requested_p requested_s]
      * <p>
      * (d/s) id x y
      * <p>
@@ -91,80 +170,43 @@ public class SensorNetwork implements Network {
      * @param fileName the path to the .sn file
      */
     public SensorNetwork(String fileName) {
-        File file = new File(fileName);
-        if (!file.exists()) {
-            throw new IllegalArgumentException(String.format("File \"%s\" doesn't exist!", fileName));
-        }
+        this(NetworkFile.read(fileName));
+    }
 
-        int lineNumber = 1;
-        try (Scanner fileScanner = new Scanner(file)) {
-            if (!fileScanner.hasNext()) {
-                throw new IllegalArgumentException(String.format("File \"%s\" is empty!", fileName));
-            }
+    /**
+     * Constructor to create a Sensor Network from the contents of an .sn or .snb
+     * file, re-using its graph and cost matrix (if any) if they were saved with
+     * the current bits per packet.
+     *
+     * @param file the contents of the file
+     */
+    private SensorNetwork(NetworkFile file) {
+        this.width = file.width;
+        this.length = file.length;
+        this.transmissionRange = file.transmissionRange;
+        this.dataPacketCount = file.dataPacketCount;
+        this.storageCapacity = file.storageCapacity;
+        this.generation = file.generation;
+
+        this.initNodes(file.nodes);
+        final int N = this.nodes.size();
+
+        /* Saved costs are only valid for the bits per packet they were calculated with */
+        boolean costsValid = file.bitsPerPacket == SensorNode.getBitsPerPacket();
+        if (file.graph == null) {
+            this.graph = this.initGraph(this.nodes, false);
+        } else if (file.graph.getNodeCount() != N) {
+            throw new IllegalArgumentException("Invalid file provided: The graph doesn't match the nodes");
+        } else if (costsValid) {
+            this.graph = file.graph;
+        } else {
+            this.graph = file.graph.withWeights(this::getCost);
+        }
+        this.initCosts();
 
-            this.width = fileScanner.nextDouble();
-            this.length = fileScanner.nextDouble();
-            this.transmissionRange = fileScanner.nextDouble();
-            fileScanner.nextLine();
-            lineNumber++;
-
-            this.dataPacketCount = fileScanner.nextInt();
-            this.storageCapacity = fileScanner.nextInt();
-            fileScanner.nextLine();
-            lineNumber++;
-
-            int N = fileScanner.nextInt();
-            fileScanner.nextLine();
-            lineNumber++;
-
-            SensorNode.resetCounter();
-            StorageNode.resetCounter();
-            DataNode.resetCounter();
-            TransitionNode.resetCounter();
-
-            this.nodes = new ArrayList<>();
-            this.sNodes = new ArrayList<>();
-            this.dNodes = new ArrayList<>();
-            this.tNodes = new ArrayList<>();
-
-            String[] lineArgs;
-            double x, y;
-            SensorNode node;
-            for (int i = 0; i < N; i++) {
-                lineArgs = fileScanner.nextLine().split(" ");
-                if (lineArgs.length < 3 || lineArgs.length > 4) {
-                    throw new IOException(String.format("Invalid Line %d: %s!", lineNumber, String.join(" ", lineArgs)));
-                }
-
-                x = Double.parseDouble(lineArgs[1]);
-                y = Double.parseDouble(lineArgs[2]);
-
-
-                // Requires JDK 12+
-                node = switch (lineArgs[0]) {
-                    case "d" ->
-                            new DataNode(x, y, this.transmissionRange, this.dataPacketCount, Integer.parseInt(lineArgs[3]));
-                    case "s" ->
-                            new StorageNode(x, y, this.transmissionRange, this.storageCapacity);
-                    case "t" ->
-                            new TransitionNode(x, y, this.transmissionRange);
-                    default ->
-                            throw new IOException();
-                };
-
-                this.nodes.add(node);
-                if (node instanceof DataNode) {
-                    this.dNodes.add((DataNode) node);
-                } else if (node instanceof StorageNode) {
-                    this.sNodes.add((StorageNode) node);
-                } else {
-                    this.tNodes.add((TransitionNode) node);
-                }
-                lineNumber++;
-            }
-            this.graph = this.initGraph(this.nodes);
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Invalid file provided: " + e.getMessage());
+        if (costsValid && file.costMatrix != null && file.costMatrix.length == this.dNodes.size()
+                && (file.costMatrix.length == 0 || file.costMatrix[0].length == this.sNodes.size())) {
+            this.costs.setCostMatrix(file.costMatrix);
         }
     }
 
@@ -183,33 +225,180 @@ public class SensorNetwork implements Network {
      * @param Vh the maximum value of a data packet (inclusive)
      */
     public static SensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh) {
-        SensorNetwork network;
-        int attempts = 0;
-        do {
-            network = new SensorNetwork(x, y, N, tr, p, q, s, m, Vl, Vh);
-
-            /* Checks if the parameters in the program are feasible */
-            if (!network.isFeasible()) {
-                System.out.println("Invalid network parameters! Please re-run the program.");
-                System.out.println("Exiting the program...");
-                System.exit(0);
-            }
+        return of(x, y, N, tr, p, q, s, m, Vl, Vh, GenerationMode.REJECTION);
+    }
 
-            /*
-             * Checks if we were able to find a valid network within a reasonable range of
-             * attempts
-             */
-            if (attempts > N * 1000) {
-                System.out.printf("Failed to create a connected network after %d tries! Please re-run the program.\n",
-                        N * 1000);
-                System.out.println("Exiting the program...");
-                System.exit(0);
-            }
-            attempts++;
+    /**
+     * Wrapped constructor to create a connected Sensor Network
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed (CONNECTED never needs a second attempt)
+     */
+    public static SensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh,
+                                   GenerationMode mode) {
+        return of(x, y, N, tr, p, q, s, m, Vl, Vh, mode, Generation.randomSeed());
+    }
 
-        } while (!(network.isConnected()));
+    /**
+     * Wrapped constructor to create a connected Sensor Network from a seed. The
+     * same seed and parameters always return the same network, which is the same
+     * one {@link #ofParallel(double, double, int, double, int, int, int, int, int, int, long, ForkJoinPool)}
+     * returns in REJECTION mode.
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed (CONNECTED never needs a second attempt)
+     * @param seed the seed that the seed of every candidate network is drawn from
+     */
+    public static SensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh,
+                                   GenerationMode mode, long seed) {
+        return Generation.requireConnected(generate(x, y, N, tr, p, q, s, m, Vl, Vh, mode, seed), N * 1000);
+    }
 
-        return network;
+    /**
+     * Generates candidate networks until one is connected, without exiting the program
+     * when that fails. The seed of each candidate is drawn in order from one seed.
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param mode how the nodes are placed
+     * @param seed the seed that the seed of every candidate is drawn from
+     * @return the first candidate that is connected or infeasible (in LARGEST_COMPONENT mode, only if the
+     * parameters are infeasible), or null if none is within N * 1000 + 1 tries
+     */
+    static SensorNetwork generate(double x, double y, int N, double tr, int p, int q, int s, int m, int Vl, int Vh,
+                                  GenerationMode mode, long seed) {
+        return Generation.firstConnected(N, p, q, m, mode, seed,
+                candidateSeed -> new SensorNetwork(x, y, N, tr, p, q, s, m, Vl, Vh, mode, candidateSeed, true));
+    }
+
+    /**
+     * Wrapped constructor to create a Sensor Network that generates candidate networks
+     * in parallel on the common ForkJoin pool
+     *
+     * @param x  the width of the network (in meters)
+     * @param y  the length of the network (in meters)
+     * @param N  the number of nodes
+     * @param tr the transmission range of the nodes (in meters)
+     * @param p  the number of Data Nodes in the network
+     * @param q  the number of data packets each Data Node has
+     * @param s  the number of Storage Nodes in the network
+     * @param m  the storage capacity each Storage nodes has
+     * @param Vl the minimum value of a data packet (inclusive)
+     * @param Vh the maximum value of a data packet (inclusive)
+     * @see #ofParallel(double, double, int, double, int, int, int, int, int, int, long, ForkJoinPool)
+     */
+    public static SensorNetwork ofParallel(double x, double y, int N, double tr, int p, int q, int s, int m,
+                                           int Vl, int Vh) {
+        return ofParallel(x, y, N, tr, p, q, s, m, Vl, Vh, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Wrapped constructor to create a Sensor Network that generates candidate networks
+     * in parallel from a random seed.
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param pool the pool to generate the candidates on
+     * @see #ofParallel(double, double, int, double, int, int, int, int, int, int, long, ForkJoinPool)
+     */
+    public static SensorNetwork ofParallel(double x, double y, int N, double tr, int p, int q, int s, int m,
+                                           int Vl, int Vh, ForkJoinPool pool) {
+        return ofParallel(x, y, N, tr, p, q, s, m, Vl, Vh, Generation.randomSeed(), pool);
+    }
+
+    /**
+     * Wrapped constructor to create a Sensor Network that generates candidate networks
+     * in parallel.
+     *
+     * <p>
+     * </p>
+     *
+     * Candidates are generated in batches, each from its own seed drawn in order from
+     * one seed, the same way {@link #of(double, double, int, double, int, int, int, int, int, int, GenerationMode, long)}
+     * draws them. The lowest-numbered connected candidate of the first batch that has
+     * one is returned, so the result does not depend on thread timing and is the same
+     * network that generating the candidates one at a time returns.
+     *
+     * @param x    the width of the network (in meters)
+     * @param y    the length of the network (in meters)
+     * @param N    the number of nodes
+     * @param tr   the transmission range of the nodes (in meters)
+     * @param p    the number of Data Nodes in the network
+     * @param q    the number of data packets each Data Node has
+     * @param s    the number of Storage Nodes in the network
+     * @param m    the storage capacity each Storage nodes has
+     * @param Vl   the minimum value of a data packet (inclusive)
+     * @param Vh   the maximum value of a data packet (inclusive)
+     * @param seed the seed that the seed of every candidate network is drawn from
+     * @param pool the pool to generate the candidates on
+     */
+    public static SensorNetwork ofParallel(double x, double y, int N, double tr, int p, int q, int s, int m,
+                                           int Vl, int Vh, long seed, ForkJoinPool pool) {
+        final int maxAttempts = N * 1000;
+        final int batchSize = Math.max(pool.getParallelism() * 2, 1);
+        SplittableRandom root = new SplittableRandom(seed);
+
+        for (int attempts = 0; attempts <= maxAttempts; attempts += batchSize) {
+            /* Draw sequentially so candidate i always gets the same seed for the same root */
+            int candidates = Math.min(batchSize, maxAttempts + 1 - attempts);
+            long[] seeds = new long[candidates];
+            for (int i = 0; i < candidates; i++) {
+                seeds[i] = root.nextLong();
+            }
+
+            /* Infeasible candidates are kept so the same exit as of() can be taken */
+            Optional<SensorNetwork> found = pool.submit(() -> IntStream.range(0, candidates)
+                    .parallel()
+                    .mapToObj(i -> {
+                        if (Metrics.ENABLED) {
+                            Metrics.add(Metrics.Counter.GENERATION_ATTEMPTS, 1);
+                        }
+                        return new SensorNetwork(x, y, N, tr, p, q, s, m, Vl, Vh, GenerationMode.REJECTION, seeds[i],
+                                true);
+                    })
+                    .filter(network -> !network.isFeasible() || network.isConnected())
+                    .findFirst()
+            ).join();
+
+            if (found.isPresent()) {
+                return Generation.requireConnected(found.get(), maxAttempts);
+            }
+        }
+        return Generation.requireConnected(null, maxAttempts);
     }
 
     /**
@@ -226,13 +415,19 @@ public class SensorNetwork implements Network {
      * <p>
      * data_packets_per_node storage_capacity_per_node
      * <p>
-     * total_nodes battery_capacity_per_node
+     * total_nodes [seed min_packet_value max_packet_value mode requested_nodes requested_p requested_s]
      * <p>
      * (d/s) id x y
      * <p>
      * ...
      *
-     * @param fileName the path to the .sn file
+     * <p>
+     * </p>
+     *
+     * Files ending in .snb are read as the binary format saved by
+     * {@link #saveBinary(String, boolean, boolean)} instead.
+     *
+     * @param fileName the path to the .sn (or .snb) file
      */
     public static SensorNetwork from(String fileName) {
         return new SensorNetwork(fileName);
@@ -252,7 +447,7 @@ public class SensorNetwork implements Network {
      * <p>
      * data_packets_per_node storage_capacity_per_node
      * <p>
-     * total_nodes battery_capacity_per_node
+     * total_nodes [seed min_packet_value max_packet_value mode requested_nodes requested_p requested_s]
      * <p>
      * (d/s) id x y
      * <p>
@@ -263,72 +458,83 @@ public class SensorNetwork implements Network {
      * @param storageCapacity the number of storage spaces each Storage Node has
      */
     public static SensorNetwork from(String fileName, int overflowPackets, int storageCapacity) {
-        SensorNetwork sn = new SensorNetwork(fileName);
+        SensorNetwork sn = from(fileName);
         sn.setOverflowPackets(overflowPackets);
         sn.setStorageCapacity(storageCapacity);
         return sn;
     }
 
-    private List<SensorNode> initNodes(int nodeCount, int p, int s, int Vl, int Vh) {
-        List<SensorNode> nodes = new ArrayList<>(nodeCount);
-        Random rand = new Random();
-
-        /* Reset Counters (This is a temporary fix) */
-        SensorNode.resetCounter();
-        StorageNode.resetCounter();
-        DataNode.resetCounter();
-        TransitionNode.resetCounter();
-
-        /* Choose p random nodes to be Generator Nodes, the rest are Storage Nodes */
-        int choice;
-        double x, y;
-        SensorNode tmp;
-        int tmpVal;
-        for (int index = 0; index < nodeCount; index++) {
-            choice = rand.nextInt(1, 11);
-            x = this.width * rand.nextDouble();
-            y = this.length * rand.nextDouble();
-
-            tmpVal = rand.nextInt(Vh - Vl + 1) + Vl;
-
-            if ((choice < 4 && p > 0) || nodeCount - index <= p) {
-                tmp = new DataNode(x, y, this.transmissionRange, this.dataPacketCount, tmpVal);
-                this.dNodes.add((DataNode) tmp);
-                p--;
-            } else if ((choice < 8 && s > 0) || nodeCount - index - p - s <= 0) {
-                tmp = new StorageNode(x, y, this.transmissionRange, this.storageCapacity);
-                this.sNodes.add((StorageNode) tmp);
-                s--;
+    private void initNodes(NodeColumns columns) {
+        final int N = columns.size();
+        this.nodes = new ArrayList<>(N);
+        this.dNodes = new ArrayList<>();
+        this.sNodes = new ArrayList<>();
+        this.tNodes = new ArrayList<>();
+
+        SensorNode node;
+        for (int index = 0; index < N; index++) {
+            double x = columns.xs[index], y = columns.ys[index];
+            node = switch (columns.types[index]) {
+                case NodeColumns.DATA -> new DataNode(index + 1, this.dNodes.size() + 1, x, y,
+                        this.transmissionRange, this.dataPacketCount, columns.values[index]);
+                case NodeColumns.STORAGE -> new StorageNode(index + 1, this.sNodes.size() + 1, x, y,
+                        this.transmissionRange, this.storageCapacity);
+                default -> new TransitionNode(index + 1, this.tNodes.size() + 1, x, y, this.transmissionRange);
+            };
+
+            this.nodes.add(node);
+            if (node instanceof DataNode dn) {
+                this.dNodes.add(dn);
+            } else if (node instanceof StorageNode sn) {
+                this.sNodes.add(sn);
             } else {
-                tmp = new TransitionNode(x, y, this.transmissionRange);
-                this.tNodes.add((TransitionNode) tmp);
+                this.tNodes.add((TransitionNode) node);
             }
-            nodes.add(tmp);
         }
-        return nodes;
-    }
-
-    private Map<SensorNode, Set<SensorNode>> initGraph(List<SensorNode> nodes) {
-        Map<SensorNode, Set<SensorNode>> graph = new HashMap<>();
-
-        /* Create the adjacency graph */
-        SensorNode node1;
-        SensorNode node2;
-        for (int index1 = 0; index1 < nodes.size(); index1++) {
-            node1 = nodes.get(index1);
-
-            /* Populate the graph with adjacent nodes */
-            graph.putIfAbsent(node1, new HashSet<>());
-            for (int index2 = index1 + 1; index2 < nodes.size(); index2++) {
-                node2 = nodes.get(index2);
-                graph.putIfAbsent(node2, new HashSet<>());
-                if (node1.inRangeOf(node2)) {
-                    graph.get(node1).add(node2);
-                    graph.get(node2).add(node1); // This makes the graph a non-directed graph
-                }
+    }
+
+    /**
+     * Builds the adjacency graph of the nodes, tracking whether they are connected
+     * while the edges are found.
+     *
+     * @param nodes              the nodes of the network
+     * @param stopIfDisconnected true to give up as soon as the nodes can no longer be connected
+     * @return the graph, or null if it was given up on
+     */
+    CsrGraph initGraph(List<SensorNode> nodes, boolean stopIfDisconnected) {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.GRAPH_BUILD);
+        try {
+            /* Cells are sized to the largest range, since inRangeOf() uses the smaller range of each pair */
+            double maxRange = 0;
+            for (SensorNode node : nodes) {
+                maxRange = Math.max(maxRange, node.getTransmissionRange());
+            }
+
+            /* Create the adjacency graph, only checking nodes in the surrounding cells */
+            GraphSweep sweep = GraphSweep.run(this.width, this.length, maxRange + 0.0001, nodes.size(),
+                    index -> nodes.get(index).getX(), index -> nodes.get(index).getY(),
+                    (index1, index2) -> nodes.get(index1).inRangeOf(nodes.get(index2)), stopIfDisconnected);
+            this.connected = sweep.isConnected();
+            if (sweep.isStopped()) {
+                return null;
             }
+            return sweep.getGraph().build((from, to) -> this.getCost(nodes.get(from), nodes.get(to)));
+        } finally {
+            Metrics.stop(timer);
+        }
+    }
+
+    private void initCosts() {
+        int[] dataIndices = new int[this.dNodes.size()];
+        for (DataNode dn : this.dNodes) {
+            dataIndices[dn.getId() - 1] = dn.getUuid() - 1;
+        }
+        int[] storageIndices = new int[this.sNodes.size()];
+        for (StorageNode sn : this.sNodes) {
+            storageIndices[sn.getId() - 1] = sn.getUuid() - 1;
         }
-        return graph;
+        this.costs = new PathCosts(this.graph, this::getCost, index -> this.nodes.get(index).getX(),
+                index -> this.nodes.get(index).getY(), dataIndices, storageIndices);
     }
 
     @Override
@@ -355,6 +561,11 @@ public class SensorNetwork implements Network {
         return storageCapacity;
     }
 
+    @Override
+    public OptionalLong getSeed() {
+        return this.generation == null ? OptionalLong.empty() : OptionalLong.of(this.generation.seed);
+    }
+
     @Override
     public List<SensorNode> getSensorNodes() {
         return Collections.unmodifiableList(this.nodes);
@@ -400,7 +611,16 @@ public class SensorNetwork implements Network {
      */
     @Override
     public boolean isConnected() {
-        return dfs(this.nodes);
+        /* Graphs built by this network know it already, so only loaded graphs are checked */
+        if (this.connected == null) {
+            Metrics.Timer timer = Metrics.start(Metrics.Phase.CONNECTIVITY_CHECK);
+            try {
+                this.connected = GraphSweep.isConnected(this.graph);
+            } finally {
+                Metrics.stop(timer);
+            }
+        }
+        return this.connected;
     }
 
     /**
@@ -414,27 +634,119 @@ public class SensorNetwork implements Network {
 
     @Override
     public Map<SensorNode, Set<SensorNode>> getAdjacencyList() {
-        return Collections.unmodifiableMap(this.graph);
+        return new GraphView(this.graph, this.nodes::get).getAdjacencyList();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * </p>
+     *
+     * Min-cost queries may run concurrently from several threads.
+     */
     @Override
     public int calculateMinCost(SensorNode from, SensorNode to) {
-        Pair<SensorNode, SensorNode> pair = Pair.of(from, to);
-        if (costMap.containsKey(pair)) {
-            return costMap.get(pair);
+        return this.costs.minCost(from.getUuid() - 1, to.getUuid() - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SensorNode> getMinCostPath(SensorNode from, SensorNode to) {
+        int[] indices = this.costs.minCostPath(from.getUuid() - 1, to.getUuid() - 1);
+        List<SensorNode> path = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            path.add(this.nodes.get(index));
         }
+        return path;
+    }
 
-        int cost = this.calculateCostOfPath(this.getMinCostPath(from, to));
-        costMap.put(pair, cost);
-        return cost;
+    /**
+     * Limits how many min-costs {@link #calculateMinCost(SensorNode, SensorNode)} remembers
+     * (besides the DN -> SN cost matrix), forgetting the oldest ones first.
+     *
+     * @param maxSize the maximum number of cached min-costs, or 0 for no limit
+     */
+    public void setCostCacheSize(int maxSize) {
+        this.costs.setCacheSize(maxSize);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public List<SensorNode> getMinCostPath(SensorNode from, SensorNode to) {
-        return bfs(this.graph, from, to);
+    public void setPathEngine(PathEngine engine) {
+        this.costs.setEngine(engine);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PathEngine getPathEngine() {
+        return this.costs.getEngine();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setGoalDirectedQueries(boolean goalDirected) {
+        this.costs.setGoalDirected(goalDirected);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasGoalDirectedQueries() {
+        return this.costs.isGoalDirected();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ContractionStats buildContractionHierarchy() {
+        return this.costs.buildHierarchy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ContractionStats> getContractionStats() {
+        return this.costs.getHierarchyStats();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearContractionHierarchy() {
+        this.costs.clearHierarchy();
+    }
+
+    /**
+     * Forgets every cached min-cost, so the next queries have to search again.
+     */
+    void clearCostCaches() {
+        this.costs.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[][] getCostMatrix() {
+        int[][] matrix = this.costs.getCostMatrix();
+        int[][] copy = new int[matrix.length][];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
     }
 
     /**
@@ -454,49 +766,45 @@ public class SensorNetwork implements Network {
      */
     @Override
     public void save(String fileName) {
-        File file = new File(fileName);
-
-        try (PrintWriter pw = new PrintWriter(file)) {
-            pw.printf("%f %f %f\n", this.getWidth(), this.getLength(), this.transmissionRange); // X, Y, Tr
-            pw.printf("%d %d\n", this.dataPacketCount, this.storageCapacity); // q m
-            pw.printf("%d\n", this.nodes.size()); // N
-
-            for (SensorNode n : this.nodes) {
-                if (n instanceof DataNode dn) {         // JDK 15+ feature
-                    pw.printf("%c %f %f %d\n", 'd', dn.getX(), dn.getY(), dn.getOverflowPacketValue());
-                } else if (n instanceof StorageNode) {
-                    pw.printf("%c %f %f\n", 's', n.getX(), n.getY());
-                } else {
-                    pw.printf("%c %f %f\n", 't', n.getX(), n.getY());
-                }
-            }
+        if (fileName.endsWith(NetworkFile.BINARY_EXTENSION)) {
+            this.saveBinary(fileName, true, this.costs.getCostMatrixIfPresent() != null);
+            return;
+        }
+
+        NetworkFile file = new NetworkFile(this.width, this.length, this.transmissionRange, this.dataPacketCount,
+                this.storageCapacity, SensorNode.getBitsPerPacket(), NodeColumns.of(this.nodes), this.generation,
+                null, null);
+        try {
+            file.writeText(new File(fileName).toPath());
             System.out.printf("Saved sensor network in file \"%s\"!\n", fileName);
         } catch (IOException e) {
             System.out.printf("ERROR: Failed to create \"%s\"!\n", fileName);
         }
     }
 
-    private boolean dfs(List<SensorNode> nodes) {
-        Stack<SensorNode> stack = new Stack<>();
-        Set<SensorNode> seen = new HashSet<>();
-        stack.push(nodes.get(0));
-
-        SensorNode curr;
-        while (!stack.isEmpty()) {
-            curr = stack.pop();
-            seen.add(curr);
-
-            for (SensorNode neighbor : this.getNeighbors(curr)) {
-                if (!seen.contains(neighbor)) {
-                    stack.push(neighbor);
-                }
-            }
+    /**
+     * Saves the network into the binary .snb file format, which stores the nodes
+     * as columns and can be loaded back with {@link #from(String)} without
+     * parsing text.
+     *
+     * @param fileName          the path to the file to save to
+     * @param includeGraph      true to also save the adjacency graph, so loading doesn't rebuild it
+     * @param includeCostMatrix true to also save the DN -> SN cost matrix (calculating it if needed)
+     */
+    public void saveBinary(String fileName, boolean includeGraph, boolean includeCostMatrix) {
+        NetworkFile file = new NetworkFile(this.width, this.length, this.transmissionRange, this.dataPacketCount,
+                this.storageCapacity, SensorNode.getBitsPerPacket(), NodeColumns.of(this.nodes), this.generation,
+                includeGraph ? this.costs.getGraph() : null, includeCostMatrix ? this.costs.getCostMatrix() : null);
+        try {
+            file.writeBinary(new File(fileName).toPath());
+            System.out.printf("Saved sensor network in file \"%s\"!\n", fileName);
+        } catch (IOException e) {
+            System.out.printf("ERROR: Failed to create \"%s\"!\n", fileName);
         }
-        return seen.size() == nodes.size();
     }
 
     public Set<SensorNode> getNeighbors(SensorNode node) {
-        return this.graph.getOrDefault(node, Set.of());
+        return new GraphView(this.graph, this.nodes::get).getNeighbors(node);
     }
 
     private boolean isConnected(SensorNode sensorNode1, SensorNode sensorNode2) {
@@ -508,114 +816,50 @@ public class SensorNetwork implements Network {
      */
     @Override
     public void saveAsCsInp(String fileName) {
-        final int supply = this.dataPacketCount * this.getDataNodeCount();
-        final int demand = -supply;
-
-        final int totalNodes = this.getDataNodeCount() + this.getStorageNodeCount() + 3;
-        final int totalEdges = this.getEdgeCount();
-
-        File file = new File(fileName);
-        try (PrintWriter writer = new PrintWriter(file)) {
-            /* Header */
-            writer.printf("c Min-Cost flow problem with %d nodes and %d arcs (edges)\n", totalNodes, totalEdges);
-            writer.printf("p min %d %d\n", totalNodes, totalEdges);
-            writer.println();
-
-            /* Set s (source) and t (sink) nodes */
-            writer.printf("c Supply of %d at node %d (\"Source\")\n", supply, 0);
-            writer.printf("n %d %d\n", 0, supply);
-            writer.println();
-
-            writer.printf("c Demand of %d at node %d (\"Sink\")\n", demand, totalNodes - 1);
-            writer.printf("n %d %d\n", totalNodes - 1, demand);
-            writer.println();
-
-            /* Arcs */
-            writer.println("c arc list follows");
-            writer.println("c arc has <tail> <head> <capacity l.b.> <capacity u.b> <cost>");
-
-            /* Path from Source to DN is always 0 cost (not represented in the network) */
-            for (DataNode dn : this.dNodes) {
-                writer.printf("c Source -> %s\n", dn.getName());
-                writer.printf("a %d %d %d %d %d\n", 0, dn.getId(), 0, this.dataPacketCount, 0);
-            }
-            writer.println();
-
-            /* Find all paths from DN# -> SN#, Dummy */
-            int profit;
-            for (DataNode dn : this.dNodes) {
-                for (StorageNode sn : this.sNodes) {
-                    writer.printf("c %s -> %s\n", dn.getName(), sn.getName());
-                    profit = this.calculateProfitOf(dn, sn);
-                    writer.printf("a %d %d %d %d %d\n", dn.getId(), this.sNodes.indexOf(sn) + this.dNodes.size() + 1,
-                            0, this.dataPacketCount, -profit
-                    );
-                }
-                writer.printf("c %s to Dummy Node\n", dn.getName());
-                writer.printf("a %d %d %d %d %d\n", dn.getId(), totalNodes - 2, 0, this.dataPacketCount, 0);
-                writer.println();
-            }
-
-            /* Path from SN, Dummy -> Sink is always 0 cost (not represented in the network) */
-            writer.println("c SNs to Sink");
-            for (SensorNode sn : this.sNodes) {
-                writer.printf("a %d %d %d %d %d\n",
-                        sn.getId() + this.getDataNodeCount(), totalNodes - 1, 0, this.storageCapacity, 0);
-            }
-            writer.println("c Dummy to Sink");
-            writer.printf("a %d %d %d %d %d\n", totalNodes - 2, totalNodes - 1, 0, supply, 0);
+        this.saveAsCsInp(fileName, true);
+    }
 
-            System.out.printf("Saved flow network in file \"%s\"!\n", fileName);
-        } catch (IOException e) {
-            System.out.printf("ERROR: Failed to create %s\n", fileName);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAsCsInp(String fileName, boolean includeComments) {
+        /* Find all paths from DN# -> SN# before creating the file */
+        DimacsWriter.save(this, this.costs.getCostMatrix(), fileName, includeComments);
     }
 
-    private List<SensorNode> bfs(Map<SensorNode, Set<SensorNode>> graph, SensorNode start, SensorNode end) {
-        Queue<Tuple<SensorNode, Integer, SensorNode>> q = new PriorityQueue<>(Comparator.comparing(Tuple::second));
-        Map<SensorNode, SensorNode> backPointers = new HashMap<>();
-        q.offer(Tuple.of(start, 0, null));
-
-        Tuple<SensorNode, Integer, SensorNode> currPair;
-        SensorNode curr;
-        SensorNode prev;
-        int value;
-        while (!q.isEmpty()) {
-            currPair = q.poll();
-            curr = currPair.first();
-            value = currPair.second();
-            prev = currPair.third();
-
-            if (!backPointers.containsKey(curr)) {
-                backPointers.put(curr, prev);
-                for (SensorNode neighbor : graph.getOrDefault(curr, Set.of())) {
-                    q.offer(Tuple.of(neighbor, value + this.getCost(curr, neighbor), curr));
-                }
-            }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAsCsInp(String fileName, boolean includeComments, ArcPruning pruning) {
+        DimacsWriter.save(this, this.costs.getCostMatrix(), fileName, includeComments, pruning);
+    }
 
-            if (curr.equals(end)) {
-                break;
-            }
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FlowSolution solveMaxProfit() {
+        return MaxProfitFlow.of(this).solve();
+    }
 
-        LinkedList<SensorNode> deque = new LinkedList<>();
-        curr = end;
-        while (curr != null) {
-            deque.push(curr);
-            curr = backPointers.getOrDefault(curr, null);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FlowSolution solveMaxProfit(ArcPruning pruning) {
+        return MaxProfitFlow.of(this).solve(pruning);
+    }
 
-        return deque;
+    private int getCost(int from, int to) {
+        return this.getCost(this.nodes.get(from), this.nodes.get(to));
     }
 
     private int getCost(SensorNode from, SensorNode to) {
         return from.calculateTransmissionCost(to) + to.calculateReceivingCost();
     }
 
-    private int getEdgeCount() {
-        return this.dNodes.size() + ((this.sNodes.size() + 1) * this.dNodes.size()) + (this.sNodes.size() + 1);
-    }
-
     public void setOverflowPackets(int overflowPackets) {
         this.dataPacketCount = overflowPackets;
 
@@ -0,0 +1,218 @@
+package com.grivera.generator;
+
+import com.grivera.util.IndexedIntHeap;
+import com.grivera.util.IndexedIntQueue;
+import com.grivera.util.IntBucketQueue;
+
+import java.util.Arrays;
+
+/**
+ * Represents a reusable Dijkstra search over a weighted graph whose nodes are
+ * the indices [0, nodeCount).
+ *
+ * <p>
+ * </p>
+ *
+ * The distance and parent arrays are allocated once and only the entries
+ * touched by the previous search are reset, so repeated queries do not
+ * allocate. A search is not thread-safe.
+ *
+ * <p>
+ * </p>
+ *
+ * The nodes waiting to be settled are kept in a binary heap, or in a bucket
+ * queue when the engine is {@link PathEngine#BUCKET} and the largest arc cost
+ * fits in {@link PathEngine#MAX_BUCKETS} buckets.
+ */
+final class ShortestPaths {
+
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final CsrGraph graph;
+    private final PathEngine engine;
+
+    private final int[] dist;
+    private final int[] parent;
+    private final IndexedIntQueue queue;
+    private final int[] touched;
+    private int touchedCount;
+
+    /**
+     * Creates a search over the given graph.
+     *
+     * @param graph  the weighted graph to search
+     * @param engine the priority queue to search with
+     */
+    ShortestPaths(CsrGraph graph, PathEngine engine) {
+        int nodeCount = graph.getNodeCount();
+        this.graph = graph;
+        this.engine = engine;
+        this.dist = new int[nodeCount];
+        this.parent = new int[nodeCount];
+        this.queue = createQueue(graph, engine);
+        this.touched = new int[nodeCount];
+        Arrays.fill(this.dist, UNREACHABLE);
+        Arrays.fill(this.parent, -1);
+    }
+
+    private static IndexedIntQueue createQueue(CsrGraph graph, PathEngine engine) {
+        if (engine == PathEngine.BUCKET) {
+            int maxWeight = 0;
+            for (int arc = 0; arc < graph.getArcCount(); arc++) {
+                maxWeight = Math.max(maxWeight, graph.weight(arc));
+            }
+
+            /* An A* key can exceed the last one by an arc's cost plus how much the bound grows along it */
+            long maxStep = 2L * maxWeight + 2;
+            if (maxStep < PathEngine.MAX_BUCKETS) {
+                return new IntBucketQueue(graph.getNodeCount(), (int) maxStep);
+            }
+        }
+        return new IndexedIntHeap(graph.getNodeCount());
+    }
+
+    CsrGraph getGraph() {
+        return this.graph;
+    }
+
+    PathEngine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Runs a search from the source until the target is settled.
+     *
+     * <p>
+     * </p>
+     *
+     * Only the distance of the target (and of nodes settled before it) is final
+     * afterwards. A negative target searches the whole graph.
+     *
+     * @param source the index of the starting node
+     * @param target the index of the ending node, or -1 for every node
+     */
+    void search(int source, int target) {
+        this.search(source, target, null);
+    }
+
+    /**
+     * Runs an A* search from the source until the target is settled, taking the
+     * nodes in order of their distance plus a lower bound on their remaining cost
+     * to the target, so the search heads toward the target instead of spreading
+     * out evenly.
+     *
+     * <p>
+     * </p>
+     *
+     * Only the distance of the target is final afterwards. A node's key never
+     * drops below the key of the node it was reached from (pathmax), and a node is
+     * re-queued if it is reached again at a lower distance, so the distance of the
+     * target is exact even if rounding makes the bound slightly inconsistent.
+     *
+     * @param source the index of the starting node
+     * @param target the index of the ending node
+     * @param bound  the lower bound on the cost to the target, or null for a plain search
+     */
+    void search(int source, int target, CostBound bound) {
+        this.reset();
+        boolean guided = bound != null && target >= 0;
+        if (guided) {
+            bound.setTarget(target);
+        }
+
+        this.touch(source, 0, -1);
+        this.queue.offer(source, guided ? bound.toTarget(source) : 0);
+
+        CsrGraph graph = this.graph;
+        int curr, currDist, currKey, neighbor, newDist, begin, end;
+        long pushes = 1, pops = 0, relaxations = 0;
+        while (!this.queue.isEmpty()) {
+            curr = this.queue.poll();
+            if (Metrics.ENABLED) {
+                pops++;
+            }
+            if (curr == target) {
+                break;
+            }
+
+            currDist = this.dist[curr];
+            currKey = this.queue.keyOf(curr);
+            begin = graph.begin(curr);
+            end = graph.end(curr);
+            if (Metrics.ENABLED) {
+                relaxations += end - begin;
+            }
+            for (int arc = begin; arc < end; arc++) {
+                neighbor = graph.target(arc);
+                newDist = currDist + graph.weight(arc);
+                if (newDist < this.dist[neighbor]) {
+                    this.touch(neighbor, newDist, curr);
+                    this.queue.offer(neighbor, guided
+                            ? Math.max(currKey, newDist + bound.toTarget(neighbor))
+                            : newDist);
+                    if (Metrics.ENABLED) {
+                        pushes++;
+                    }
+                }
+            }
+        }
+        this.queue.clear();
+
+        if (Metrics.ENABLED) {
+            Metrics.add(Metrics.Counter.SHORTEST_PATH_QUERIES, 1);
+            Metrics.add(Metrics.Counter.HEAP_PUSHES, pushes);
+            Metrics.add(Metrics.Counter.HEAP_POPS, pops);
+            Metrics.add(Metrics.Counter.EDGE_RELAXATIONS, relaxations);
+        }
+    }
+
+    /**
+     * Returns the cost of the min-cost path found by the last search.
+     *
+     * @param node the index of a settled node
+     * @return the cost to reach the node, or UNREACHABLE
+     */
+    int distanceTo(int node) {
+        return this.dist[node];
+    }
+
+    /**
+     * Returns the nodes in the min-cost path found by the last search.
+     *
+     * @param node the index of a settled node
+     * @return the indices from the source to the node, or an empty array if
+     *         the node is unreachable
+     */
+    int[] pathTo(int node) {
+        if (this.dist[node] == UNREACHABLE) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int curr = node; curr >= 0; curr = this.parent[curr]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int curr = node; curr >= 0; curr = this.parent[curr]) {
+            path[--length] = curr;
+        }
+        return path;
+    }
+
+    private void touch(int node, int distance, int from) {
+        if (this.dist[node] == UNREACHABLE) {
+            this.touched[this.touchedCount++] = node;
+        }
+        this.dist[node] = distance;
+        this.parent[node] = from;
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.touchedCount; i++) {
+            this.dist[this.touched[i]] = UNREACHABLE;
+            this.parent[this.touched[i]] = -1;
+        }
+        this.touchedCount = 0;
+    }
+}
@@ -0,0 +1,313 @@
+package com.grivera.generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Represents a buffered reader of the whitespace-separated tokens in an .sn file.
+ *
+ * <p>
+ * </p>
+ *
+ * Tokens are parsed straight from the bytes of the file (without a String per
+ * token) and every error reports the line it happened on.
+ */
+final class SnFileReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /* Mantissas up to 2^53 are exact doubles, so one division by an exact power of ten rounds correctly */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position, limit;
+
+    private byte[] token = new byte[32];
+    private int tokenLength;
+    private int lineNumber = 1;
+
+    /**
+     * Opens an .sn file.
+     *
+     * @param path the path to the .sn file
+     * @throws IOException if the file cannot be opened
+     */
+    SnFileReader(Path path) throws IOException {
+        this.in = Files.newInputStream(path);
+    }
+
+    /**
+     * Checks if there is another token in the file, skipping any blank lines.
+     *
+     * @return true if there is another token
+     * @throws IOException if the file cannot be read
+     */
+    boolean hasNext() throws IOException {
+        int c;
+        while ((c = this.peek()) == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            if (c == '\n') {
+                this.lineNumber++;
+            }
+            this.position++;
+        }
+        return c >= 0;
+    }
+
+    /**
+     * Checks if there is another token on the current line.
+     *
+     * @return true if there is another token before the end of the line
+     * @throws IOException if the file cannot be read
+     */
+    boolean hasNextOnLine() throws IOException {
+        this.skipSpaces();
+        int c = this.peek();
+        return c >= 0 && c != '\n';
+    }
+
+    /**
+     * Skips the rest of the current line, including any tokens left on it.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    void nextLine() throws IOException {
+        int c;
+        while ((c = this.peek()) >= 0) {
+            this.position++;
+            if (c == '\n') {
+                break;
+            }
+        }
+        this.lineNumber++;
+    }
+
+    /**
+     * Moves to the next line, failing if there are tokens left on the current line.
+     *
+     * @throws IOException if there is another token on the line or the file cannot be read
+     */
+    void endLine() throws IOException {
+        if (this.hasNextOnLine()) {
+            this.readToken();
+            throw this.error("end of line");
+        }
+        this.nextLine();
+    }
+
+    /**
+     * Skips the next token on the current line.
+     *
+     * @throws IOException if there is no token left on the line
+     */
+    void skip() throws IOException {
+        if (!this.readToken()) {
+            throw this.error("a value");
+        }
+    }
+
+    /**
+     * Reads a token that is a single character.
+     *
+     * @return the character
+     * @throws IOException if the next token is missing or longer than one character
+     */
+    char nextChar() throws IOException {
+        if (!this.readToken() || this.tokenLength != 1) {
+            throw this.error("a node type");
+        }
+        return (char) (this.token[0] & 0xFF);
+    }
+
+    /**
+     * Reads a token that is an integer.
+     *
+     * @return the integer
+     * @throws IOException if the next token is missing or not an integer
+     */
+    int nextInt() throws IOException {
+        return (int) this.nextInteger(Integer.MIN_VALUE, Integer.MAX_VALUE, "an integer");
+    }
+
+    /**
+     * Reads a token that is a long integer.
+     *
+     * @return the long integer
+     * @throws IOException if the next token is missing or not a long integer
+     */
+    long nextLong() throws IOException {
+        return this.nextInteger(Long.MIN_VALUE, Long.MAX_VALUE, "a long integer");
+    }
+
+    /**
+     * Reads a token that is a word (e.g. an enum constant).
+     *
+     * @return the word
+     * @throws IOException if there is no token left on the line
+     */
+    String next() throws IOException {
+        if (!this.readToken()) {
+            throw this.error("a word");
+        }
+        return this.tokenAsString();
+    }
+
+    private long nextInteger(long min, long max, String expected) throws IOException {
+        if (!this.readToken()) {
+            throw this.error(expected);
+        }
+
+        int i = 0;
+        boolean negative = false;
+        if (this.token[0] == '-' || this.token[0] == '+') {
+            negative = this.token[0] == '-';
+            i++;
+        }
+        if (i == this.tokenLength) {
+            throw this.error(expected);
+        }
+
+        /* Accumulate negatively so the minimum value can be parsed */
+        long limit = negative ? min : -max;
+        long value = 0;
+        for (; i < this.tokenLength; i++) {
+            int digit = this.token[i] - '0';
+            if (digit < 0 || digit > 9 || value < (limit + digit) / 10) {
+                throw this.error(expected);
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Reads a token that is a decimal number.
+     *
+     * @return the number (rounded the same way as Double.parseDouble())
+     * @throws IOException if the next token is missing or not a number
+     */
+    double nextDouble() throws IOException {
+        if (!this.readToken()) {
+            throw this.error("a number");
+        }
+
+        int i = 0;
+        boolean negative = false;
+        if (this.token[0] == '-' || this.token[0] == '+') {
+            negative = this.token[0] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0, fractionDigits = -1;
+        for (; i < this.tokenLength; i++) {
+            int c = this.token[i];
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+
+            int digit = c - '0';
+            if (digit < 0 || digit > 9 || mantissa >= MAX_EXACT_MANTISSA) {
+                return this.parseDoubleSlowly();
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+
+        if (digits == 0) {
+            throw this.error("a number");
+        }
+        if (mantissa > MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length) {
+            return this.parseDoubleSlowly();
+        }
+
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /* Handles exponents, long mantissas, etc. that the fast path can't round exactly */
+    private double parseDoubleSlowly() throws IOException {
+        try {
+            return Double.parseDouble(this.tokenAsString());
+        } catch (NumberFormatException e) {
+            throw this.error("a number");
+        }
+    }
+
+    /**
+     * Creates an error for the current line, quoting the last token read.
+     *
+     * @param expected what should have been read
+     * @return the error to throw
+     */
+    IOException error(String expected) {
+        if (this.tokenLength == 0) {
+            return new IOException(String.format("Invalid Line %d: expected %s!", this.lineNumber, expected));
+        }
+        return new IOException(String.format("Invalid Line %d: expected %s but found \"%s\"!",
+                this.lineNumber, expected, this.tokenAsString()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * Copies the next token on the current line into the token buffer.
+     *
+     * @return true if a token was read, false if the line has no tokens left
+     * @throws IOException if the file cannot be read
+     */
+    private boolean readToken() throws IOException {
+        this.tokenLength = 0;
+        if (!this.hasNextOnLine()) {
+            return false;
+        }
+
+        int c;
+        while ((c = this.peek()) >= 0 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+            if (this.tokenLength == this.token.length) {
+                this.token = Arrays.copyOf(this.token, this.tokenLength * 2);
+            }
+            this.token[this.tokenLength++] = (byte) c;
+            this.position++;
+        }
+        return true;
+    }
+
+    private String tokenAsString() {
+        return new String(this.token, 0, this.tokenLength, StandardCharsets.US_ASCII);
+    }
+
+    private void skipSpaces() throws IOException {
+        int c;
+        while ((c = this.peek()) == ' ' || c == '\t' || c == '\r') {
+            this.position++;
+        }
+    }
+
+    private int peek() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = Math.max(this.in.read(this.buffer), 0);
+            this.position = 0;
+            if (this.limit == 0) {
+                return -1;
+            }
+        }
+        return this.buffer[this.position] & 0xFF;
+    }
+}
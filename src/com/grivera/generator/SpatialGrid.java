@@ -0,0 +1,181 @@
+package com.grivera.generator;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Represents a uniform grid over the network area that buckets node indices
+ * by their coordinates.
+ *
+ * <p>
+ * </p>
+ *
+ * Each cell is at least as wide as the largest transmission range in the
+ * network, so any node within range of a point is in the point's cell or in
+ * one of its eight neighboring cells.
+ */
+final class SpatialGrid {
+
+    /* Caps the number of cells so sparse ranges on a large area don't blow up memory */
+    private static final int MAX_CELLS_PER_NODE = 4;
+
+    private final double cellWidth, cellLength;
+    private final int columns, rows;
+    private final int[] cellHeads;
+    private int[] next;
+
+    /**
+     * Creates an empty grid.
+     *
+     * @param width     the width of the network (in meters)
+     * @param length    the length of the network (in meters)
+     * @param cellSize  the minimum size of a cell (usually the largest transmission range)
+     * @param nodeCount the expected number of nodes to insert
+     */
+    SpatialGrid(double width, double length, double cellSize, int nodeCount) {
+        if (!(cellSize > 0)) {
+            cellSize = Math.max(width, length);
+        }
+        long maxCells = Math.max(1L, (long) nodeCount * MAX_CELLS_PER_NODE);
+        int columns = clampCells(width / cellSize);
+        int rows = clampCells(length / cellSize);
+        while ((long) columns * rows > maxCells) {
+            columns = Math.max(1, (columns + 1) / 2);
+            rows = Math.max(1, (rows + 1) / 2);
+        }
+
+        this.columns = columns;
+        this.rows = rows;
+        this.cellWidth = width > 0 ? width / columns : 1;
+        this.cellLength = length > 0 ? length / rows : 1;
+        this.cellHeads = new int[columns * rows];
+        Arrays.fill(this.cellHeads, -1);
+        this.next = new int[Math.max(nodeCount, 1)];
+    }
+
+    private static int clampCells(double cells) {
+        if (!(cells >= 1)) {
+            return 1;
+        }
+        return (int) Math.min(cells, Integer.MAX_VALUE / 2);
+    }
+
+    /**
+     * Adds the node index at the given coordinates to the grid.
+     *
+     * @param index the index of the node (must be unique and non-negative)
+     * @param x     the x coordinate of the node
+     * @param y     the y coordinate of the node
+     */
+    void insert(int index, double x, double y) {
+        if (index >= this.next.length) {
+            this.next = Arrays.copyOf(this.next, Math.max(index + 1, this.next.length * 2));
+        }
+        int cell = this.cellOf(this.columnOf(x), this.rowOf(y));
+        this.next[index] = this.cellHeads[cell];
+        this.cellHeads[cell] = index;
+    }
+
+    /**
+     * Visits every inserted node index that could be within one cell size of the
+     * given coordinates. The caller is still responsible for the exact range check.
+     *
+     * @param x       the x coordinate to search around
+     * @param y       the y coordinate to search around
+     * @param visitor the consumer of each candidate node index
+     * @return the number of candidates visited
+     */
+    int forEachCandidate(double x, double y, IntConsumer visitor) {
+        int column = this.columnOf(x);
+        int row = this.rowOf(y);
+
+        int minColumn = Math.max(column - 1, 0);
+        int maxColumn = Math.min(column + 1, this.columns - 1);
+        int minRow = Math.max(row - 1, 0);
+        int maxRow = Math.min(row + 1, this.rows - 1);
+        int visited = 0;
+        for (int c = minColumn; c <= maxColumn; c++) {
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int i = this.cellHeads[this.cellOf(c, r)]; i >= 0; i = this.next[i]) {
+                    visitor.accept(i);
+                    visited++;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Finds the inserted node index closest to the given coordinates by searching
+     * rings of cells outwards from the point's cell.
+     *
+     * @param x  the x coordinate to search around
+     * @param y  the y coordinate to search around
+     * @param xs the x coordinates of the nodes (by index)
+     * @param ys the y coordinates of the nodes (by index)
+     * @return the closest node index, or -1 if the grid is empty
+     */
+    int nearest(double x, double y, double[] xs, double[] ys) {
+        int column = this.columnOf(x);
+        int row = this.rowOf(y);
+        double minCellSize = Math.min(this.cellWidth, this.cellLength);
+        int maxRing = Math.max(this.columns, this.rows);
+
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        double dx, dy, distance;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int c = column - ring; c <= column + ring; c++) {
+                if (c < 0 || c >= this.columns) {
+                    continue;
+                }
+
+                /* Only visit the border of the ring */
+                int step = (c == column - ring || c == column + ring) ? 1 : 2 * ring;
+                for (int r = row - ring; r <= row + ring; r += Math.max(step, 1)) {
+                    if (r < 0 || r >= this.rows) {
+                        continue;
+                    }
+                    for (int i = this.cellHeads[this.cellOf(c, r)]; i >= 0; i = this.next[i]) {
+                        dx = xs[i] - x;
+                        dy = ys[i] - y;
+                        distance = Math.sqrt(dx * dx + dy * dy);
+                        if (distance < bestDistance) {
+                            best = i;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+
+            /* Every node in a further ring is at least this far away */
+            if (best >= 0 && bestDistance <= ring * minCellSize) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    int columnOf(double x) {
+        return clampIndex((int) (x / this.cellWidth), this.columns);
+    }
+
+    int rowOf(double y) {
+        return clampIndex((int) (y / this.cellLength), this.rows);
+    }
+
+    int getColumnCount() {
+        return this.columns;
+    }
+
+    private int cellOf(int column, int row) {
+        return row * this.columns + column;
+    }
+
+    private static int clampIndex(int index, int size) {
+        if (index < 0) {
+            return 0;
+        }
+        return Math.min(index, size - 1);
+    }
+}
@@ -0,0 +1,245 @@
+package com.grivera.generator;
+
+import com.grivera.generator.flow.FlowSolution;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a parameter sweep without the GUI: generates every instance of a
+ * {@link SweepSpec} from its own seed, calculates its cost matrix, solves its
+ * max-profit flow and appends one CSV row per instance.
+ *
+ * <p>
+ * </p>
+ *
+ * Instances run in parallel on a work-stealing ForkJoinPool, and each row is
+ * flushed as soon as its instance finishes, in whichever order they finish.
+ * The CSV doubles as the checkpoint: running the same sweep into the same file
+ * again skips every instance that already has a row.
+ *
+ * <p>
+ * </p>
+ *
+ * Usage: java com.grivera.generator.SweepRunner spec_file results.csv [threads]
+ */
+public final class SweepRunner {
+
+    static final String HEADER = "instance,seed,width,length,N,tr,p,q,s,m,Vl,Vh,status,"
+            + "generate_ms,cost_matrix_ms,solve_ms,profit,cost,stored_packets";
+    private static final int COLUMNS = HEADER.split(",").length;
+
+    private final SweepSpec spec;
+    private final long[] seeds;
+    private final Path output;
+    private BufferedWriter writer;
+
+    /**
+     * Creates the runner of a sweep.
+     *
+     * @param spec   the sweep to run
+     * @param output the CSV file to append the results to
+     */
+    SweepRunner(SweepSpec spec, Path output) {
+        this.spec = spec;
+        this.seeds = spec.getInstanceSeeds();
+        this.output = output;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Usage: java com.grivera.generator.SweepRunner spec_file results.csv [threads]");
+            System.exit(1);
+        }
+
+        int threads = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        SweepRunner runner = new SweepRunner(SweepSpec.read(args[0]), Path.of(args[1]));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            runner.run(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs every instance that has no row in the output file yet.
+     *
+     * @param pool the pool to run the instances on
+     * @return the number of instances that were run
+     */
+    int run(ForkJoinPool pool) {
+        BitSet done = this.resume();
+        int[] remaining = IntStream.range(0, this.spec.getInstanceCount()).filter(i -> !done.get(i)).toArray();
+        if (done.cardinality() > 0) {
+            System.out.printf("Resuming sweep: %d/%d instances already done\n",
+                    done.cardinality(), this.spec.getInstanceCount());
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(this.output, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            this.writer = writer;
+            pool.submit(() -> Arrays.stream(remaining)
+                    .parallel()
+                    .forEach(instance -> this.write(this.runInstance(instance)))
+            ).join();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.writer = null;
+        }
+
+        System.out.printf("Saved sweep results in file \"%s\"!\n", this.output);
+        return remaining.length;
+    }
+
+    /**
+     * Finds the instances that already have a row in the output file, and rewrites
+     * the file without the row an interrupted run was writing (if any).
+     *
+     * @return the instances that are done
+     * @throws IllegalArgumentException if the file holds the results of a different sweep
+     */
+    private BitSet resume() {
+        BitSet done = new BitSet(this.spec.getInstanceCount());
+        StringBuilder kept = new StringBuilder(HEADER).append('\n');
+        try {
+            if (Files.exists(this.output) && Files.size(this.output) > 0) {
+                String contents = Files.readString(this.output, StandardCharsets.UTF_8);
+
+                /* Only rows that end with a newline were written completely */
+                String[] lines = contents.substring(0, contents.lastIndexOf('\n') + 1).split("\n");
+                if (!lines[0].equals(HEADER)) {
+                    throw new IllegalArgumentException(
+                            String.format("Cannot resume: \"%s\" is not a sweep results file", this.output));
+                }
+                for (int i = 1; i < lines.length; i++) {
+                    String[] row = lines[i].split(",", -1);
+                    int instance = row.length == COLUMNS ? Integer.parseInt(row[0]) : -1;
+                    if (instance < 0 || instance >= this.seeds.length
+                            || Long.parseLong(row[1]) != this.seeds[instance]) {
+                        throw new IllegalArgumentException(
+                                String.format("Cannot resume: \"%s\" holds the results of a different sweep",
+                                        this.output));
+                    }
+                    if (!done.get(instance)) {
+                        done.set(instance);
+                        kept.append(lines[i]).append('\n');
+                    }
+                }
+            }
+
+            /* Replace the file in one step, so an interruption now cannot lose the finished rows */
+            Path temp = this.output.resolveSibling(this.output.getFileName() + ".tmp");
+            Files.writeString(temp, kept, StandardCharsets.UTF_8);
+            Files.move(temp, this.output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return done;
+    }
+
+    /**
+     * Generates, prices and solves one instance. An instance that throws gets a
+     * row with an error status (and the exception's class) instead of ending the
+     * sweep, so resuming skips it unless its row is deleted.
+     *
+     * @param instance the instance to run
+     * @return the CSV row of the instance
+     */
+    String runInstance(int instance) {
+        double[] parameters = this.spec.getParameters(instance);
+        double x = parameters[0], y = parameters[1], tr = parameters[3];
+        int N = (int) parameters[2], p = (int) parameters[4], q = (int) parameters[5], s = (int) parameters[6],
+                m = (int) parameters[7], Vl = (int) parameters[8], Vh = (int) parameters[9];
+
+        StringBuilder row = new StringBuilder();
+        row.append(instance).append(',').append(this.seeds[instance]);
+        for (int i = 0; i < parameters.length; i++) {
+            row.append(',');
+            if (i == 0 || i == 1 || i == 3) {
+                row.append(parameters[i]);
+            } else {
+                row.append((int) parameters[i]);
+            }
+        }
+
+        if (p + s > N || Vl > Vh) {
+            return row.append(",invalid,,,,,,").toString();
+        }
+
+        int parametersEnd = row.length();
+        try {
+            return this.solveInstance(instance, row, x, y, N, tr, p, q, s, m, Vl, Vh);
+        } catch (RuntimeException e) {
+            System.err.printf("Instance %d failed: %s\n", instance, e);
+            row.setLength(parametersEnd);
+            return row.append(",error:").append(e.getClass().getName()).append(",,,,,,").toString();
+        }
+    }
+
+    /* Appends the status and results of a valid instance to its row */
+    private String solveInstance(int instance, StringBuilder row, double x, double y, int N, double tr, int p, int q,
+                                 int s, int m, int Vl, int Vh) {
+        long start = System.nanoTime();
+        Network network;
+        if (this.spec.isCompact()) {
+            network = CompactSensorNetwork.generate(x, y, N, tr, p, q, s, m, Vl, Vh, this.spec.getMode(),
+                    this.seeds[instance]);
+        } else {
+            network = SensorNetwork.generate(x, y, N, tr, p, q, s, m, Vl, Vh, this.spec.getMode(),
+                    this.seeds[instance]);
+        }
+        long generated = System.nanoTime();
+
+        if (network == null) {
+            return row.append(",disconnected,").append(millis(generated - start)).append(",,,,,").toString();
+        } else if (!network.isFeasible()) {
+            return row.append(",infeasible,").append(millis(generated - start)).append(",,,,,").toString();
+        }
+
+        network.getCostMatrix();
+        long costed = System.nanoTime();
+        FlowSolution solution = network.solveMaxProfit(this.spec.getPruning());
+        long solved = System.nanoTime();
+
+        /* The network may have fewer Data Nodes than p if it kept only its largest component */
+        int stored = network.getDataNodeCount() * q;
+        for (int dnId = 1; dnId <= network.getDataNodeCount(); dnId++) {
+            stored -= solution.getDiscardedPackets(dnId);
+        }
+        return row.append(",ok,")
+                .append(millis(generated - start)).append(',')
+                .append(millis(costed - generated)).append(',')
+                .append(millis(solved - costed)).append(',')
+                .append(solution.getTotalProfit()).append(',')
+                .append(solution.getTotalCost()).append(',')
+                .append(stored)
+                .toString();
+    }
+
+    private synchronized void write(String row) {
+        try {
+            this.writer.write(row);
+            this.writer.write('\n');
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,214 @@
+package com.grivera.generator;
+
+import com.grivera.generator.flow.ArcPruning;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Represents a parameter sweep: every combination of the listed generation
+ * parameters, each generated a number of times.
+ *
+ * <p>
+ * </p>
+ *
+ * The spec file has one "key = value" line per parameter, where the generation
+ * parameters (width, length, N, tr, p, q, s, m, Vl, Vh) may list several
+ * comma-separated values:
+ * <p>
+ * </p>
+ * N = 100, 200, 400
+ * <p>
+ * tr = 25
+ * <p>
+ * ...
+ * <p>
+ * </p>
+ * The optional keys are runs (instances per combination, 1 by default), seed
+ * (0 by default), mode (REJECTION by default, see {@link GenerationMode}),
+ * network (object or compact, object by default) and pruning (none,
+ * unprofitable or the number of arcs to keep per Data Node, none by default,
+ * see {@link ArcPruning}). Blank lines and lines starting with # are ignored.
+ */
+final class SweepSpec {
+
+    /* The generation parameters, in the order they vary (the last one fastest) */
+    static final String[] PARAMETERS = {"width", "length", "N", "tr", "p", "q", "s", "m", "Vl", "Vh"};
+
+    private final double[][] values;
+    private final int runs;
+    private final long seed;
+    private final GenerationMode mode;
+    private final boolean compact;
+    private final ArcPruning pruning;
+    private final int combinations;
+
+    private SweepSpec(double[][] values, int runs, long seed, GenerationMode mode, boolean compact,
+                      ArcPruning pruning) {
+        this.values = values;
+        this.runs = runs;
+        this.seed = seed;
+        this.mode = mode;
+        this.compact = compact;
+        this.pruning = pruning;
+
+        long combinations = 1;
+        for (double[] options : values) {
+            combinations *= options.length;
+        }
+        if (combinations * runs > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid sweep spec: Too many instances");
+        }
+        this.combinations = (int) combinations;
+    }
+
+    /**
+     * Reads a sweep spec file.
+     *
+     * @param fileName the path to the spec file
+     * @return the sweep
+     * @throws IllegalArgumentException if the file cannot be read or is invalid
+     */
+    static SweepSpec read(String fileName) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(fileName))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                int equals = line.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException(
+                            String.format("Invalid sweep spec: Expected \"key = value\" but found \"%s\"", line));
+                }
+                entries.put(line.substring(0, equals).strip(), line.substring(equals + 1).strip());
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Cannot read sweep spec \"%s\"", fileName), e);
+        }
+
+        double[][] values = new double[PARAMETERS.length][];
+        for (int i = 0; i < PARAMETERS.length; i++) {
+            String value = entries.remove(PARAMETERS[i]);
+            if (value == null) {
+                throw new IllegalArgumentException(
+                        String.format("Invalid sweep spec: Missing parameter \"%s\"", PARAMETERS[i]));
+            }
+            values[i] = parseList(PARAMETERS[i], value, i != 0 && i != 1 && i != 3);
+        }
+
+        int runs = (int) parseNumber("runs", entries.getOrDefault("runs", "1"), true);
+        long seed = Long.parseLong(entries.getOrDefault("seed", "0"));
+        GenerationMode mode = GenerationMode.valueOf(
+                entries.getOrDefault("mode", GenerationMode.REJECTION.name()).toUpperCase(Locale.ROOT));
+        String network = entries.getOrDefault("network", "object");
+        if (!network.equals("object") && !network.equals("compact")) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid sweep spec: Unknown network \"%s\" (expected object or compact)", network));
+        }
+        ArcPruning pruning = parsePruning(entries.getOrDefault("pruning", "none"));
+        entries.keySet().removeAll(List.of("runs", "seed", "mode", "network", "pruning"));
+        if (!entries.isEmpty()) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid sweep spec: Unknown keys %s", entries.keySet()));
+        }
+        if (runs < 1) {
+            throw new IllegalArgumentException("Invalid sweep spec: runs must be positive");
+        }
+        return new SweepSpec(values, runs, seed, mode, network.equals("compact"), pruning);
+    }
+
+    private static ArcPruning parsePruning(String value) {
+        if (value.equals("none")) {
+            return ArcPruning.NONE;
+        } else if (value.equals("unprofitable")) {
+            return ArcPruning.UNPROFITABLE;
+        }
+
+        int k = (int) parseNumber("pruning", value, true);
+        if (k < 1) {
+            throw new IllegalArgumentException("Invalid sweep spec: pruning must keep at least 1 arc per Data Node");
+        }
+        return ArcPruning.topK(k);
+    }
+
+    private static double[] parseList(String key, String value, boolean integer) {
+        String[] tokens = value.split(",");
+        double[] values = new double[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            values[i] = parseNumber(key, tokens[i].strip(), integer);
+        }
+        return values;
+    }
+
+    private static double parseNumber(String key, String token, boolean integer) {
+        try {
+            return integer ? Integer.parseInt(token) : Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid sweep spec: \"%s\" is not a valid value of %s", token, key));
+        }
+    }
+
+    /**
+     * Returns the number of instances, which is the number of combinations times the runs.
+     *
+     * @return the number of instances
+     */
+    int getInstanceCount() {
+        return this.combinations * this.runs;
+    }
+
+    /**
+     * Returns the generation parameters of an instance, in the order of {@link #PARAMETERS}.
+     *
+     * @param instance the instance, from 0 to getInstanceCount() - 1
+     * @return the parameters of the instance
+     */
+    double[] getParameters(int instance) {
+        int combination = instance / this.runs;
+        double[] parameters = new double[PARAMETERS.length];
+        for (int i = PARAMETERS.length - 1; i >= 0; i--) {
+            parameters[i] = this.values[i][combination % this.values[i].length];
+            combination /= this.values[i].length;
+        }
+        return parameters;
+    }
+
+    /**
+     * Returns the seed of every instance, drawn in order from the seed of the sweep,
+     * so each instance is generated the same way on every run of the sweep.
+     *
+     * @return the seed of each instance
+     */
+    long[] getInstanceSeeds() {
+        SplittableRandom root = new SplittableRandom(this.seed);
+        long[] seeds = new long[this.getInstanceCount()];
+        for (int instance = 0; instance < seeds.length; instance++) {
+            seeds[instance] = root.nextLong();
+        }
+        return seeds;
+    }
+
+    GenerationMode getMode() {
+        return this.mode;
+    }
+
+    boolean isCompact() {
+        return this.compact;
+    }
+
+    ArcPruning getPruning() {
+        return this.pruning;
+    }
+}
@@ -0,0 +1,155 @@
+package com.grivera.generator.flow;
+
+import java.util.Arrays;
+
+/**
+ * Represents which DN -> SN arcs of a max-profit flow network can be left out
+ * without changing its max total profit.
+ *
+ * <p>
+ * </p>
+ *
+ * An arc whose profit is not positive never does better than the zero-cost
+ * arc to the dummy node, so it can always be dropped. Keeping only the k most
+ * profitable arcs of each Data Node is also safe as long as those k Storage
+ * Nodes can never all be full, which is when k * m is at least the total
+ * number of packets (p * q). A smaller k is raised to that bound.
+ */
+public final class ArcPruning {
+
+    /**
+     * Keeps every arc.
+     */
+    public static final ArcPruning NONE = new ArcPruning(false, Integer.MAX_VALUE);
+
+    /**
+     * Drops the arcs whose profit is not positive.
+     */
+    public static final ArcPruning UNPROFITABLE = new ArcPruning(true, Integer.MAX_VALUE);
+
+    private final boolean dropUnprofitable;
+    private final int maxArcsPerDataNode;
+
+    private ArcPruning(boolean dropUnprofitable, int maxArcsPerDataNode) {
+        this.dropUnprofitable = dropUnprofitable;
+        this.maxArcsPerDataNode = maxArcsPerDataNode;
+    }
+
+    /**
+     * Drops the arcs whose profit is not positive, then keeps only the most
+     * profitable arcs of each Data Node.
+     *
+     * @param k the number of arcs to keep per Data Node (raised if the capacities need more)
+     * @return the pruning
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public static ArcPruning topK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException(String.format("Invalid number of arcs per Data Node %d", k));
+        }
+        return new ArcPruning(true, k);
+    }
+
+    /**
+     * Chooses the DN -> SN arcs to keep.
+     *
+     * @param packetValues    the value of a packet of each Data Node (by ID - 1)
+     * @param costMatrix      the min-cost from each Data Node to each Storage Node
+     * @param overflowPackets the number of packets each Data Node has
+     * @param storageCapacity the number of packets each Storage Node can store
+     * @return the kept arcs
+     */
+    public Result apply(int[] packetValues, int[][] costMatrix, int overflowPackets, int storageCapacity) {
+        final int p = costMatrix.length;
+        final int s = p == 0 ? 0 : costMatrix[0].length;
+
+        /* The fewest arcs per Data Node that cannot all lead to full Storage Nodes */
+        long totalPackets = (long) p * overflowPackets;
+        long safeArcs = storageCapacity > 0 ? (totalPackets + storageCapacity - 1) / storageCapacity : 0;
+        int k = (int) Math.min(s, Math.max(this.maxArcsPerDataNode, safeArcs));
+
+        int[][] kept = new int[p][];
+        int[] candidates = new int[s];
+        long[] ranked = new long[s];
+        long keptCount = 0;
+        for (int i = 0; i < p; i++) {
+            int count = 0;
+            for (int j = 0; j < s; j++) {
+                if (!this.dropUnprofitable || packetValues[i] - (long) costMatrix[i][j] > 0) {
+                    candidates[count++] = j;
+                }
+            }
+
+            if (count > k) {
+                /* Rank by cost, then by ID, and keep the cheapest in ID order */
+                for (int c = 0; c < count; c++) {
+                    ranked[c] = ((long) costMatrix[i][candidates[c]] << 32) | candidates[c];
+                }
+                Arrays.sort(ranked, 0, count);
+                for (int c = 0; c < k; c++) {
+                    candidates[c] = (int) ranked[c];
+                }
+                count = k;
+                Arrays.sort(candidates, 0, count);
+            }
+            kept[i] = Arrays.copyOf(candidates, count);
+            keptCount += count;
+        }
+        return new Result(kept, (long) p * s - keptCount);
+    }
+
+    @Override
+    public String toString() {
+        if (!this.dropUnprofitable) {
+            return "ArcPruning[none]";
+        } else if (this.maxArcsPerDataNode == Integer.MAX_VALUE) {
+            return "ArcPruning[unprofitable]";
+        }
+        return String.format("ArcPruning[unprofitable, top %d]", this.maxArcsPerDataNode);
+    }
+
+    /**
+     * Represents the DN -> SN arcs that were kept.
+     */
+    public static final class Result {
+        private final int[][] kept;
+        private final long removedCount;
+
+        private Result(int[][] kept, long removedCount) {
+            this.kept = kept;
+            this.removedCount = removedCount;
+        }
+
+        /**
+         * Returns the Storage Nodes that a Data Node keeps an arc to.
+         *
+         * @param dnIndex the ID - 1 of the Data Node
+         * @return the IDs - 1 of the Storage Nodes, in ascending order (must not be modified)
+         */
+        public int[] getKept(int dnIndex) {
+            return this.kept[dnIndex];
+        }
+
+        public long getKeptCount() {
+            long count = 0;
+            for (int[] arcs : this.kept) {
+                count += arcs.length;
+            }
+            return count;
+        }
+
+        public long getRemovedCount() {
+            return this.removedCount;
+        }
+
+        /**
+         * Checks if two results kept the same arcs, so one flow network serves both.
+         *
+         * @param other the other result
+         * @return true if and only if every Data Node kept arcs to the same Storage Nodes; otherwise false
+         */
+        boolean hasSameArcs(Result other) {
+            return this == other || Arrays.deepEquals(this.kept, other.kept);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.grivera.generator.flow;
+
+/**
+ * Represents an optimal assignment of overflow data packets from Data Nodes to
+ * Storage Nodes.
+ */
+public final class FlowSolution {
+
+    private final int[][] flows;
+    private final int[] discarded;
+    private final long totalProfit;
+    private final long totalCost;
+    private final long prunedArcCount;
+
+    FlowSolution(int[][] flows, int[] discarded, long totalProfit, long totalCost, long prunedArcCount) {
+        this.flows = flows;
+        this.discarded = discarded;
+        this.totalProfit = totalProfit;
+        this.totalCost = totalCost;
+        this.prunedArcCount = prunedArcCount;
+    }
+
+    /**
+     * Returns the number of packets sent from a Data Node to a Storage Node.
+     *
+     * @param dnId the ID of the Data Node
+     * @param snId the ID of the Storage Node
+     * @return the number of packets on the DN -> SN arc
+     */
+    public int getFlow(int dnId, int snId) {
+        return this.flows[dnId - 1][snId - 1];
+    }
+
+    /**
+     * Returns the number of packets of a Data Node that are not stored
+     * (i.e. that were sent to the dummy node).
+     *
+     * @param dnId the ID of the Data Node
+     * @return the number of packets that are not stored
+     */
+    public int getDiscardedPackets(int dnId) {
+        return this.discarded[dnId - 1];
+    }
+
+    public int getDataNodeCount() {
+        return this.flows.length;
+    }
+
+    public int getStorageNodeCount() {
+        return this.flows.length == 0 ? 0 : this.flows[0].length;
+    }
+
+    /**
+     * Returns the total profit of the assignment, which is the negated
+     * cost of the min-cost flow.
+     *
+     * @return the total profit
+     */
+    public long getTotalProfit() {
+        return this.totalProfit;
+    }
+
+    /**
+     * Returns the total energy cost of sending every stored packet along its
+     * min-cost path.
+     *
+     * @return the total energy cost (in micro J)
+     */
+    public long getTotalCost() {
+        return this.totalCost;
+    }
+
+    /**
+     * Returns the number of DN -> SN arcs that were left out of the flow network
+     * (see {@link ArcPruning}).
+     *
+     * @return the number of pruned arcs
+     */
+    public long getPrunedArcCount() {
+        return this.prunedArcCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlowSolution[profit=%d, cost=%d]", this.totalProfit, this.totalCost);
+    }
+}
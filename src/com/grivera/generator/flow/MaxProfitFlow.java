@@ -0,0 +1,217 @@
+package com.grivera.generator.flow;
+
+import com.grivera.generator.Network;
+import com.grivera.generator.sensors.DataNode;
+
+/**
+ * Represents the max-profit flow network of a sensor network, built the same way
+ * as the <b>DIMAC</b> file from {@link Network#saveAsCsInp(String)}.
+ *
+ * <p>
+ * </p>
+ *
+ * Node 0 is the source, nodes 1 to p are the Data Nodes, nodes p + 1 to p + s
+ * are the Storage Nodes, node p + s + 1 is the dummy node and node p + s + 2
+ * is the sink. Each DN -> SN arc costs the negated profit of sending one
+ * packet along its min-cost path.
+ *
+ * <p>
+ * </p>
+ *
+ * The cost matrix doesn't depend on the number of packets or the storage
+ * capacity, so sweeping them over one topology only needs one flow network:
+ * change them with {@link #setOverflowPackets(int)} and
+ * {@link #setStorageCapacity(int)} between solves, and each solve after the
+ * first is warm-started from the last optimum (see {@link MinCostFlow#resolve()}).
+ * A MaxProfitFlow is not thread-safe.
+ */
+public final class MaxProfitFlow {
+
+    private final int[] packetValues;
+    private final int[][] costMatrix;
+    private int overflowPackets;
+    private int storageCapacity;
+
+    /* The flow network of the last solve, re-used while it has the same DN -> SN arcs */
+    private MinCostFlow flow;
+    private ArcPruning.Result kept;
+    private int[][] arcs;
+    private int[] sourceArcs, dummyArcs, sinkArcs;
+    private int dummySinkArc;
+
+    /**
+     * Creates the flow network.
+     *
+     * @param packetValues    the value of a packet of each Data Node (by ID - 1)
+     * @param costMatrix      the min-cost from each Data Node to each Storage Node
+     * @param overflowPackets the number of packets each Data Node has
+     * @param storageCapacity the number of packets each Storage Node can store
+     */
+    public MaxProfitFlow(int[] packetValues, int[][] costMatrix, int overflowPackets, int storageCapacity) {
+        if (packetValues.length != costMatrix.length) {
+            throw new IllegalArgumentException("The cost matrix must have one row per Data Node");
+        }
+        this.packetValues = packetValues;
+        this.costMatrix = costMatrix;
+        this.setOverflowPackets(overflowPackets);
+        this.setStorageCapacity(storageCapacity);
+    }
+
+    /**
+     * Creates the flow network of a sensor network.
+     *
+     * @param network the sensor network
+     * @return the flow network
+     */
+    public static MaxProfitFlow of(Network network) {
+        int[] values = new int[network.getDataNodeCount()];
+        for (DataNode dn : network.getDataNodes()) {
+            values[dn.getId() - 1] = dn.getOverflowPacketValue();
+        }
+        return new MaxProfitFlow(values, network.getCostMatrix(),
+                network.getDataPacketCount(), network.getStorageCapacity());
+    }
+
+    public int getOverflowPackets() {
+        return this.overflowPackets;
+    }
+
+    /**
+     * Changes the number of packets each Data Node has for the next solve.
+     *
+     * @param overflowPackets the number of packets each Data Node has
+     */
+    public void setOverflowPackets(int overflowPackets) {
+        if (overflowPackets < 0) {
+            throw new IllegalArgumentException(String.format("Invalid number of packets %d", overflowPackets));
+        }
+        this.overflowPackets = overflowPackets;
+    }
+
+    public int getStorageCapacity() {
+        return this.storageCapacity;
+    }
+
+    /**
+     * Changes the number of packets each Storage Node can store for the next solve.
+     *
+     * @param storageCapacity the number of packets each Storage Node can store
+     */
+    public void setStorageCapacity(int storageCapacity) {
+        if (storageCapacity < 0) {
+            throw new IllegalArgumentException(String.format("Invalid storage capacity %d", storageCapacity));
+        }
+        this.storageCapacity = storageCapacity;
+    }
+
+    /**
+     * Solves the min-cost flow problem in-process.
+     *
+     * @return the optimal assignment of packets
+     */
+    public FlowSolution solve() {
+        return this.solve(ArcPruning.NONE);
+    }
+
+    /**
+     * Solves the min-cost flow problem in-process, leaving out the DN -> SN arcs
+     * that the pruning drops. The max total profit is the same as without pruning,
+     * though ties between equally profitable assignments may be broken differently.
+     *
+     * <p>
+     * </p>
+     *
+     * If the last solve kept the same DN -> SN arcs, only the supplies and
+     * capacities of its flow network are updated and it is warm-started.
+     *
+     * @param pruning which arcs to leave out
+     * @return the optimal assignment of packets
+     */
+    public FlowSolution solve(ArcPruning pruning) {
+        ArcPruning.Result kept = pruning.apply(this.packetValues, this.costMatrix, this.overflowPackets,
+                this.storageCapacity);
+        final int p = this.packetValues.length;
+        final int s = p == 0 ? 0 : this.costMatrix[0].length;
+        final int q = this.overflowPackets;
+        final int supply = q * p;
+        final int sink = p + s + 2;
+
+        long totalProfit;
+        if (this.flow != null && this.kept.hasSameArcs(kept)) {
+            for (int i = 0; i < p; i++) {
+                this.flow.setCapacity(this.sourceArcs[i], q);
+                for (int arc : this.arcs[i]) {
+                    this.flow.setCapacity(arc, q);
+                }
+                this.flow.setCapacity(this.dummyArcs[i], q);
+            }
+            for (int j = 0; j < s; j++) {
+                this.flow.setCapacity(this.sinkArcs[j], this.storageCapacity);
+            }
+            this.flow.setCapacity(this.dummySinkArc, supply);
+            this.flow.setSupply(0, supply);
+            this.flow.setSupply(sink, -supply);
+            totalProfit = -this.flow.resolve();
+        } else {
+            this.build(kept);
+            totalProfit = -this.flow.solve();
+        }
+
+        int[][] flows = new int[p][s];
+        int[] discarded = new int[p];
+        long energyCost = 0;
+        for (int i = 0; i < p; i++) {
+            int[] storageNodes = kept.getKept(i);
+            for (int a = 0; a < storageNodes.length; a++) {
+                int j = storageNodes[a];
+                flows[i][j] = this.flow.getFlow(this.arcs[i][a]);
+                energyCost += (long) flows[i][j] * this.costMatrix[i][j];
+            }
+            discarded[i] = this.flow.getFlow(this.dummyArcs[i]);
+        }
+        return new FlowSolution(flows, discarded, totalProfit, energyCost, kept.getRemovedCount());
+    }
+
+    private void build(ArcPruning.Result kept) {
+        final int p = this.packetValues.length;
+        final int s = p == 0 ? 0 : this.costMatrix[0].length;
+        final int q = this.overflowPackets;
+        final int supply = q * p;
+        final int dummy = p + s + 1;
+        final int sink = p + s + 2;
+
+        MinCostFlow flow = new MinCostFlow(p + s + 3);
+        flow.setSupply(0, supply);
+        flow.setSupply(sink, -supply);
+
+        /* Source -> DN# */
+        this.sourceArcs = new int[p];
+        for (int dn = 1; dn <= p; dn++) {
+            this.sourceArcs[dn - 1] = flow.addArc(0, dn, q, 0);
+        }
+
+        /* DN# -> SN#, Dummy */
+        this.arcs = new int[p][];
+        this.dummyArcs = new int[p];
+        for (int i = 0; i < p; i++) {
+            int[] storageNodes = kept.getKept(i);
+            this.arcs[i] = new int[storageNodes.length];
+            for (int a = 0; a < storageNodes.length; a++) {
+                int j = storageNodes[a];
+                this.arcs[i][a] = flow.addArc(i + 1, p + j + 1, q,
+                        (long) this.costMatrix[i][j] - this.packetValues[i]);
+            }
+            this.dummyArcs[i] = flow.addArc(i + 1, dummy, q, 0);
+        }
+
+        /* SN#, Dummy -> Sink */
+        this.sinkArcs = new int[s];
+        for (int j = 0; j < s; j++) {
+            this.sinkArcs[j] = flow.addArc(p + j + 1, sink, this.storageCapacity, 0);
+        }
+        this.dummySinkArc = flow.addArc(dummy, sink, supply, 0);
+
+        this.flow = flow;
+        this.kept = kept;
+    }
+}
@@ -0,0 +1,501 @@
+package com.grivera.generator.flow;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents a min-cost flow problem solved in-process with Goldberg's
+ * cost-scaling push-relabel algorithm (the same algorithm that
+ * <a href="https://github.com/iveney/cs2">CS2</a> implements).
+ *
+ * <p>
+ * </p>
+ *
+ * Nodes are the indices [0, nodeCount). Arcs are added with
+ * {@link #addArc(int, int, int, long)} and supplies with
+ * {@link #setSupply(int, int)} before calling {@link #solve()}.
+ *
+ * <p>
+ * </p>
+ *
+ * After a solve, supplies and capacities can be changed and the problem solved
+ * again with {@link #resolve()}, which starts from the last optimal flow and
+ * prices instead of from scratch.
+ */
+public final class MinCostFlow {
+
+    /* How much epsilon shrinks between refinements (CS2 uses 12 by default) */
+    private static final int SCALE_FACTOR = 12;
+
+    /*
+     * How much smaller than the max cost epsilon starts when warm-starting: skipping the coarsest
+     * refinements saves time, but starting at epsilon = 1 lets the stale prices crawl in tiny steps
+     */
+    private static final long WARM_START_DIVISOR = (long) SCALE_FACTOR * SCALE_FACTOR;
+
+    private final int nodeCount;
+    private final int[] supply;
+
+    private int arcCount;
+    private int[] tails = new int[16];
+    private int[] heads = new int[16];
+    private int[] capacities = new int[16];
+    private long[] costs = new long[16];
+
+    /* Residual network: arc k is stored as 2k (forward) and 2k + 1 (backward) */
+    private int[] residual;
+    private long[] scaledCosts;
+    private int[] residualHeads;
+    private int[] outStart;
+    private int[] outArcs;
+    private long[] prices;
+    private long[] excess;
+    private int[] currentArc;
+    private int[] queue;
+    private boolean[] queued;
+
+    private long totalCost;
+    private boolean solved;
+
+    /* True if the residual network holds an optimal flow and prices for the current arcs */
+    private boolean warm;
+
+    /**
+     * Creates an empty flow problem.
+     *
+     * @param nodeCount the number of nodes in the flow network
+     */
+    public MinCostFlow(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.supply = new int[nodeCount];
+    }
+
+    /**
+     * Adds an arc with a lower capacity bound of 0.
+     *
+     * @param from     the tail of the arc
+     * @param to       the head of the arc
+     * @param capacity the upper capacity bound of the arc
+     * @param cost     the cost of sending one unit of flow through the arc
+     * @return the index of the arc
+     */
+    public int addArc(int from, int to, int capacity, long cost) {
+        if (from < 0 || from >= this.nodeCount || to < 0 || to >= this.nodeCount) {
+            throw new IndexOutOfBoundsException(String.format("Invalid arc %d -> %d", from, to));
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException(String.format("Invalid capacity %d", capacity));
+        }
+        if (this.arcCount == this.tails.length) {
+            int newLength = this.arcCount * 2;
+            this.tails = Arrays.copyOf(this.tails, newLength);
+            this.heads = Arrays.copyOf(this.heads, newLength);
+            this.capacities = Arrays.copyOf(this.capacities, newLength);
+            this.costs = Arrays.copyOf(this.costs, newLength);
+        }
+        this.tails[this.arcCount] = from;
+        this.heads[this.arcCount] = to;
+        this.capacities[this.arcCount] = capacity;
+        this.costs[this.arcCount] = cost;
+        this.solved = false;
+        this.warm = false;
+        return this.arcCount++;
+    }
+
+    /**
+     * Changes the upper capacity bound of an arc.
+     *
+     * @param arc      the index of the arc
+     * @param capacity the new upper capacity bound of the arc
+     */
+    public void setCapacity(int arc, int capacity) {
+        Objects.checkIndex(arc, this.arcCount);
+        if (capacity < 0) {
+            throw new IllegalArgumentException(String.format("Invalid capacity %d", capacity));
+        }
+        this.capacities[arc] = capacity;
+        this.solved = false;
+    }
+
+    public int getCapacity(int arc) {
+        return this.capacities[Objects.checkIndex(arc, this.arcCount)];
+    }
+
+    /**
+     * Sets the supply of a node.
+     *
+     * @param node   the node
+     * @param supply the supply of the node (negative for a demand)
+     */
+    public void setSupply(int node, int supply) {
+        this.supply[node] = supply;
+        this.solved = false;
+    }
+
+    public int getSupply(int node) {
+        return this.supply[node];
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    public int getArcCount() {
+        return this.arcCount;
+    }
+
+    /**
+     * Solves the problem from scratch.
+     *
+     * @return the total cost of the min-cost flow
+     * @throws IllegalStateException if the supplies cannot be routed to the demands
+     */
+    public long solve() {
+        this.checkBalanced();
+        this.warm = false;
+        this.initResidualNetwork();
+        this.checkFeasible();
+
+        long maxCost = 1;
+        for (long cost : this.scaledCosts) {
+            maxCost = Math.max(maxCost, Math.abs(cost));
+        }
+
+        /* The problem is feasible, so every refinement finishes however far the prices drop */
+        long epsilon = maxCost;
+        do {
+            epsilon = Math.max(1, epsilon / SCALE_FACTOR);
+            this.refine(epsilon);
+        } while (epsilon > 1);
+
+        return this.finish();
+    }
+
+    /**
+     * Solves the problem again after only supplies and capacities changed, starting
+     * from the last optimal flow (cut down to the new capacities) and prices.
+     *
+     * <p>
+     * </p>
+     *
+     * Since the costs are the same, the last prices are still close to optimal, so
+     * the coarsest refinements are skipped and the rest mostly move the flow that the
+     * changes displaced. Falls back to {@link #solve()} if there is no last solution
+     * or arcs were added since.
+     *
+     * @return the total cost of the min-cost flow
+     * @throws IllegalStateException if the supplies cannot be routed to the demands
+     */
+    public long resolve() {
+        if (!this.warm) {
+            return this.solve();
+        }
+        this.checkBalanced();
+
+        /* Checked before the flow is cut down, so an infeasible change can be undone and warm-started from */
+        this.checkFeasible();
+        this.warm = false;
+
+        int flow;
+        for (int node = 0; node < this.nodeCount; node++) {
+            this.excess[node] = this.supply[node];
+        }
+        for (int arc = 0; arc < this.arcCount; arc++) {
+            flow = Math.min(this.residual[2 * arc + 1], this.capacities[arc]);
+            this.residual[2 * arc] = this.capacities[arc] - flow;
+            this.residual[2 * arc + 1] = flow;
+            this.excess[this.tails[arc]] -= flow;
+            this.excess[this.heads[arc]] += flow;
+        }
+
+        long maxCost = 0;
+        for (long cost : this.scaledCosts) {
+            maxCost = Math.max(maxCost, Math.abs(cost));
+        }
+
+        /* The problem is feasible, so every refinement finishes however far the prices drop */
+        long epsilon = Math.max(1, maxCost / WARM_START_DIVISOR);
+        this.refine(epsilon);
+        while (epsilon > 1) {
+            epsilon = Math.max(1, epsilon / SCALE_FACTOR);
+            this.refine(epsilon);
+        }
+        return this.finish();
+    }
+
+    /**
+     * Returns the flow on an arc in the last solution.
+     *
+     * @param arc the index of the arc
+     * @return the flow on the arc
+     */
+    public int getFlow(int arc) {
+        this.checkSolved();
+        return this.residual[2 * arc + 1];
+    }
+
+    /**
+     * Returns the total cost of the last solution.
+     *
+     * @return the total cost
+     */
+    public long getTotalCost() {
+        this.checkSolved();
+        return this.totalCost;
+    }
+
+    private void checkBalanced() {
+        long total = 0;
+        for (int s : this.supply) {
+            total += s;
+        }
+        if (total != 0) {
+            throw new IllegalStateException(String.format("Supplies and demands are unbalanced by %d", total));
+        }
+    }
+
+    private void checkSolved() {
+        if (!this.solved) {
+            throw new IllegalStateException("The flow problem has not been solved");
+        }
+    }
+
+    private void initResidualNetwork() {
+        int residualCount = 2 * this.arcCount;
+        this.residual = new int[residualCount];
+        this.scaledCosts = new long[residualCount];
+        this.residualHeads = new int[residualCount];
+        this.outStart = new int[this.nodeCount + 1];
+        this.outArcs = new int[residualCount];
+        this.prices = new long[this.nodeCount];
+        this.excess = new long[this.nodeCount];
+        this.currentArc = new int[this.nodeCount];
+        this.queue = new int[this.nodeCount];
+        this.queued = new boolean[this.nodeCount];
+
+        /* Multiplying by n + 1 makes a 1-optimal flow optimal for the original costs */
+        long costScale = this.nodeCount + 1L;
+        for (int arc = 0; arc < this.arcCount; arc++) {
+            this.residual[2 * arc] = this.capacities[arc];
+            this.scaledCosts[2 * arc] = this.costs[arc] * costScale;
+            this.scaledCosts[2 * arc + 1] = -this.costs[arc] * costScale;
+            this.residualHeads[2 * arc] = this.heads[arc];
+            this.residualHeads[2 * arc + 1] = this.tails[arc];
+            this.outStart[this.tails[arc] + 1]++;
+            this.outStart[this.heads[arc] + 1]++;
+        }
+        for (int node = 0; node < this.nodeCount; node++) {
+            this.outStart[node + 1] += this.outStart[node];
+        }
+
+        int[] next = Arrays.copyOf(this.outStart, this.nodeCount);
+        for (int arc = 0; arc < this.arcCount; arc++) {
+            this.outArcs[next[this.tails[arc]]++] = 2 * arc;
+            this.outArcs[next[this.heads[arc]]++] = 2 * arc + 1;
+        }
+
+        for (int node = 0; node < this.nodeCount; node++) {
+            this.excess[node] = this.supply[node];
+        }
+    }
+
+    /**
+     * Checks that the supplies can be routed to the demands within the capacities,
+     * with Dinic's max-flow algorithm from every supply to every demand. Refining an
+     * infeasible problem would never finish, and no bound on how far its prices
+     * drop tells it apart from a feasible one in time.
+     *
+     * @throws IllegalStateException if the supplies cannot be routed to the demands
+     */
+    private void checkFeasible() {
+        int[] capacity = new int[2 * this.arcCount];
+        for (int arc = 0; arc < this.arcCount; arc++) {
+            capacity[2 * arc] = this.capacities[arc];
+        }
+
+        /* The supply left to route (positive) or demand left to meet (negative) */
+        long[] remaining = new long[this.nodeCount];
+        long needed = 0;
+        for (int node = 0; node < this.nodeCount; node++) {
+            remaining[node] = this.supply[node];
+            needed += Math.max(0, this.supply[node]);
+        }
+
+        int[] level = new int[this.nodeCount];
+        int[] current = new int[this.nodeCount];
+        int[] path = new int[this.nodeCount];
+        int[] order = new int[this.nodeCount];
+        while (needed > 0) {
+            /* Label the nodes by their distance from a supply, up to the nearest demand */
+            Arrays.fill(level, -1);
+            int head = 0, tail = 0, sinkLevel = -1;
+            for (int node = 0; node < this.nodeCount; node++) {
+                if (remaining[node] > 0) {
+                    level[node] = 0;
+                    order[tail++] = node;
+                }
+            }
+            while (head < tail) {
+                int node = order[head++];
+                if (remaining[node] < 0) {
+                    sinkLevel = level[node];
+                    break;
+                }
+                for (int i = this.outStart[node]; i < this.outStart[node + 1]; i++) {
+                    int arc = this.outArcs[i];
+                    int to = this.residualHeads[arc];
+                    if (capacity[arc] > 0 && level[to] < 0) {
+                        level[to] = level[node] + 1;
+                        order[tail++] = to;
+                    }
+                }
+            }
+            if (sinkLevel < 0) {
+                throw new IllegalStateException("The flow problem is infeasible");
+            }
+
+            /* Send a blocking flow along the shortest paths from the supplies to the demands */
+            System.arraycopy(this.outStart, 0, current, 0, this.nodeCount);
+            for (int source = 0; source < this.nodeCount; source++) {
+                while (remaining[source] > 0 && level[source] == 0) {
+                    int node = source, depth = 0;
+                    while (level[node] >= 0 && !(level[node] == sinkLevel && remaining[node] < 0)) {
+                        int arc = -1;
+                        for (; current[node] < this.outStart[node + 1]; current[node]++) {
+                            int next = this.outArcs[current[node]];
+                            int to = this.residualHeads[next];
+                            if (capacity[next] > 0 && level[to] == level[node] + 1 && level[to] <= sinkLevel) {
+                                arc = next;
+                                break;
+                            }
+                        }
+
+                        if (arc >= 0) {
+                            path[depth++] = arc;
+                            node = this.residualHeads[arc];
+                        } else {
+                            /* A dead end: retreat and skip the arc that led here */
+                            level[node] = -1;
+                            if (depth > 0) {
+                                node = this.residualHeads[path[--depth] ^ 1];
+                                current[node]++;
+                            }
+                        }
+                    }
+                    if (level[node] < 0) {
+                        break;
+                    }
+
+                    long amount = Math.min(remaining[source], -remaining[node]);
+                    for (int i = 0; i < depth; i++) {
+                        amount = Math.min(amount, capacity[path[i]]);
+                    }
+                    for (int i = 0; i < depth; i++) {
+                        capacity[path[i]] -= (int) amount;
+                        capacity[path[i] ^ 1] += (int) amount;
+                    }
+                    remaining[source] -= amount;
+                    remaining[node] += amount;
+                    needed -= amount;
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the current flow into an epsilon-optimal flow for the current prices.
+     *
+     * @param epsilon the optimality bound (in scaled costs)
+     */
+    private void refine(long epsilon) {
+        int head = 0, size = 0;
+
+        /* Saturate every residual arc with a negative reduced cost */
+        for (int node = 0; node < this.nodeCount; node++) {
+            for (int i = this.outStart[node]; i < this.outStart[node + 1]; i++) {
+                int arc = this.outArcs[i];
+                if (this.residual[arc] > 0 && this.reducedCost(node, arc) < 0) {
+                    this.push(node, arc, this.residual[arc]);
+                }
+            }
+        }
+
+        for (int node = 0; node < this.nodeCount; node++) {
+            this.currentArc[node] = this.outStart[node];
+            if (this.excess[node] > 0) {
+                this.queue[(head + size++) % this.nodeCount] = node;
+                this.queued[node] = true;
+            }
+        }
+
+        int node, arc, to;
+        long delta;
+        while (size > 0) {
+            node = this.queue[head];
+            head = (head + 1) % this.nodeCount;
+            size--;
+            this.queued[node] = false;
+
+            /* Discharge the node */
+            while (this.excess[node] > 0) {
+                if (this.currentArc[node] == this.outStart[node + 1]) {
+                    this.relabel(node, epsilon);
+                    this.currentArc[node] = this.outStart[node];
+                    continue;
+                }
+
+                arc = this.outArcs[this.currentArc[node]];
+                if (this.residual[arc] > 0 && this.reducedCost(node, arc) < 0) {
+                    to = this.residualHeads[arc];
+                    delta = Math.min(this.excess[node], this.residual[arc]);
+                    boolean wasActive = this.excess[to] > 0;
+                    this.push(node, arc, (int) delta);
+                    if (!wasActive && this.excess[to] > 0 && !this.queued[to]) {
+                        this.queue[(head + size++) % this.nodeCount] = to;
+                        this.queued[to] = true;
+                    }
+                    if (this.residual[arc] > 0) {
+                        continue;
+                    }
+                }
+                this.currentArc[node]++;
+            }
+        }
+    }
+
+    private void relabel(int node, long epsilon) {
+        long best = Long.MIN_VALUE;
+        int arc;
+        for (int i = this.outStart[node]; i < this.outStart[node + 1]; i++) {
+            arc = this.outArcs[i];
+            if (this.residual[arc] > 0) {
+                best = Math.max(best, this.prices[this.residualHeads[arc]] - this.scaledCosts[arc]);
+            }
+        }
+        if (best == Long.MIN_VALUE) {
+            throw new IllegalStateException("The flow problem is infeasible");
+        }
+        this.prices[node] = best - epsilon;
+    }
+
+    private long reducedCost(int from, int arc) {
+        return this.scaledCosts[arc] + this.prices[from] - this.prices[this.residualHeads[arc]];
+    }
+
+    private void push(int from, int arc, int amount) {
+        this.residual[arc] -= amount;
+        this.residual[arc ^ 1] += amount;
+        this.excess[from] -= amount;
+        this.excess[this.residualHeads[arc]] += amount;
+    }
+
+    private long finish() {
+        this.totalCost = 0;
+        for (int arc = 0; arc < this.arcCount; arc++) {
+            this.totalCost += this.residual[2 * arc + 1] * this.costs[arc];
+        }
+        this.solved = true;
+        this.warm = true;
+        return this.totalCost;
+    }
+}
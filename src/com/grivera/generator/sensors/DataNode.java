@@ -1,5 +1,7 @@
 package com.grivera.generator.sensors;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a Sensor Node in a com.grivera.generator.Network that has overflow data packets to store.
  *
@@ -7,15 +9,26 @@ package com.grivera.generator.sensors;
  */
 public class DataNode extends SensorNode {
 
-    private static int idCounter = 1;
+    private static final AtomicInteger idCounter = new AtomicInteger(1);
     private int id;
     private int overflowPackets;
     private int overflowPacketsValue;
     private int packetsLeft;
 
     public DataNode(double x, double y, double tr, int overflowPackets, int overflowPacketsValue) {
-        super(x, y, tr, String.format("DN%02d", idCounter));
-        this.id = idCounter++;
+        this(idCounter.getAndIncrement(), x, y, tr, overflowPackets, overflowPacketsValue);
+    }
+
+    private DataNode(int id, double x, double y, double tr, int overflowPackets, int overflowPacketsValue) {
+        super(x, y, tr, null);
+        this.id = id;
+        this.setOverflowPackets(overflowPackets);
+        this.overflowPacketsValue = overflowPacketsValue;
+    }
+
+    public DataNode(int uuid, int id, double x, double y, double tr, int overflowPackets, int overflowPacketsValue) {
+        super(uuid, x, y, tr, null);
+        this.id = id;
         this.setOverflowPackets(overflowPackets);
         this.overflowPacketsValue = overflowPacketsValue;
     }
@@ -30,27 +43,27 @@ public class DataNode extends SensorNode {
     }
 
     public boolean isEmpty() {
-        return this.packetsLeft < 1;
+        return this.getPacketsLeft() < 1;
     }
 
     public boolean canRemovePackets(int deltaPackets) {
-        return this.packetsLeft - deltaPackets >= 0;
+        return this.getPacketsLeft() - deltaPackets >= 0;
     }
 
     public void removePackets(int packets) {
         if (!this.canRemovePackets(packets)) {
             throw new IllegalArgumentException(
                     String.format("%s cannot remove %d packets (%d/%d left)",
-                            this.getName(), packets, this.packetsLeft, this.overflowPackets
+                            this.getName(), packets, this.getPacketsLeft(), this.overflowPackets
                     )
             );
         }
-        this.packetsLeft -= packets;
+        this.setPacketsLeft(this.getPacketsLeft() - packets);
     }
 
     @Override
     public void resetPackets() {
-        this.packetsLeft = this.overflowPackets;
+        this.setPacketsLeft(this.overflowPackets);
     }
 
     @Override
@@ -62,12 +75,27 @@ public class DataNode extends SensorNode {
         return this.packetsLeft;
     }
 
+    /**
+     * Updates the number of packets left, which every packet operation goes through
+     * so a subclass can keep the count somewhere else.
+     *
+     * @param packetsLeft the new number of packets left
+     */
+    protected void setPacketsLeft(int packetsLeft) {
+        this.packetsLeft = packetsLeft;
+    }
+
     public int getOverflowPacketValue() {
         return this.overflowPacketsValue;
     }
 
+    @Override
+    protected String createName() {
+        return String.format("DN%02d", this.id);
+    }
+
     public static void resetCounter() {
-        idCounter = 1;
+        idCounter.set(1);
     }
 
 }
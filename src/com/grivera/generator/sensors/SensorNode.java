@@ -1,13 +1,16 @@
 package com.grivera.generator.sensors;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents the basic form of a Sensor Node in a Sensor com.grivera.generator.Network
  */
 public abstract class SensorNode {
 
-    private static int uuidCounter = 1;
+    private static final AtomicInteger uuidCounter = new AtomicInteger(1);
+    private static final AtomicInteger costModelVersion = new AtomicInteger();
 
-    protected static int BITS_PER_PACKET = 3200;
+    protected static volatile int BITS_PER_PACKET = 3200;
     protected static final double E_elec = 100e-9;
     protected static final double E_amp = 100e-12;
 
@@ -16,12 +19,25 @@ public abstract class SensorNode {
     private String name;
 
     public SensorNode(double x, double y, double tr, String name) {
+        this(uuidCounter.getAndIncrement(), x, y, tr, name);
+    }
+
+    /**
+     * Creates a Sensor Node with a UUID chosen by its network instead of the
+     * global counter, so networks can be built concurrently.
+     *
+     * @param uuid the UUID of the node (unique within its network)
+     * @param x    the x coordinate of the node
+     * @param y    the y coordinate of the node
+     * @param tr   the transmission range of the node
+     * @param name the name of the node, or null to create it when it is first needed
+     */
+    public SensorNode(int uuid, double x, double y, double tr, String name) {
         this.x = x;
         this.y = y;
         this.tr = tr;
         this.name = name;
-        this.uuid = uuidCounter;
-        uuidCounter++;
+        this.uuid = uuid;
     }
 
     public double getX() {
@@ -36,6 +52,10 @@ public abstract class SensorNode {
         return this.uuid;
     }
 
+    public double getTransmissionRange() {
+        return this.tr;
+    }
+
     /**
      * Tests if this Sensor Node is within range of the specified Sensor Node
      *
@@ -44,7 +64,26 @@ public abstract class SensorNode {
      * of the specified Sensor Node; otherwise false
      */
     public boolean inRangeOf(SensorNode o) {
-        return this.distanceTo(o) <= Math.min(this.tr, o.tr) + 0.0001;
+        return inRange(this.x, this.y, this.tr, o.x, o.y, o.tr);
+    }
+
+    /**
+     * Tests if two Sensor Nodes at the specified coordinates would be within range
+     * of each other
+     *
+     * @param x1  the x coordinate of the first Sensor Node
+     * @param y1  the y coordinate of the first Sensor Node
+     * @param tr1 the transmission range of the first Sensor Node
+     * @param x2  the x coordinate of the second Sensor Node
+     * @param y2  the y coordinate of the second Sensor Node
+     * @param tr2 the transmission range of the second Sensor Node
+     * @return true if and only if both Sensor Nodes would be within the transmission
+     * range of each other; otherwise false
+     */
+    public static boolean inRange(double x1, double y1, double tr1, double x2, double y2, double tr2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy) <= Math.min(tr1, tr2) + 0.0001;
     }
 
     /**
@@ -54,7 +93,9 @@ public abstract class SensorNode {
      * @return the distance between the two nodes (in meters)
      */
     public double distanceTo(SensorNode o) {
-        return Math.sqrt(Math.pow(this.x - o.x, 2) + Math.pow(this.y - o.y, 2));
+        double dx = this.x - o.x;
+        double dy = this.y - o.y;
+        return Math.sqrt(dx * dx + dy * dy);
     }
 
     @Override
@@ -63,9 +104,22 @@ public abstract class SensorNode {
     }
 
     public String getName() {
+        if (this.name == null) {
+            this.name = this.createName();
+        }
         return this.name;
     }
 
+    /**
+     * Creates the name of this Sensor Node the first time it is needed, so
+     * large networks don't have to format a name for every node up front.
+     *
+     * @return the name of this Sensor Node
+     */
+    protected String createName() {
+        return String.format("N%02d", this.uuid);
+    }
+
     /**
      * Calculates the cost to transmit/relay a data packet from this Sensor Node to a specified receiver Sensor Node
      *
@@ -73,7 +127,17 @@ public abstract class SensorNode {
      * @return the cost to transmit/relay one data packet from this Sensor Node to the receiver Sensor Node
      */
     public int calculateTransmissionCost(SensorNode receiverNode) {
-        double cost = BITS_PER_PACKET * (E_elec + E_amp * Math.pow(this.distanceTo(receiverNode), 2));
+        return getTransmissionCost(this.distanceTo(receiverNode));
+    }
+
+    /**
+     * Calculates the cost to transmit/relay a data packet over a given distance
+     *
+     * @param distance the distance between the transmitting and receiving Sensor Nodes
+     * @return the cost to transmit/relay one data packet over the distance
+     */
+    public static int getTransmissionCost(double distance) {
+        double cost = BITS_PER_PACKET * (E_elec + E_amp * Math.pow(distance, 2));
         return (int) Math.round(cost * Math.pow(10, 6));
     }
 
@@ -83,10 +147,49 @@ public abstract class SensorNode {
      * @return the cost for this Sensor Node to receive a transmitted/relayed data packet
      */
     public int calculateReceivingCost() {
+        return getReceivingCost();
+    }
+
+    /**
+     * Calculates the cost for any Sensor Node to receive one transmitted/relayed data packet
+     *
+     * @return the cost to receive a transmitted/relayed data packet
+     */
+    public static int getReceivingCost() {
         double cost = BITS_PER_PACKET * E_elec;
         return (int) Math.round(cost * Math.pow(10, 6));
     }
 
+    /**
+     * Calculates a lower bound on the cost of relaying one data packet over a
+     * straight-line distance, hop by hop, where no hop is longer than maxHop.
+     *
+     * <p>
+     * </p>
+     *
+     * Each hop costs E_elec + E_amp * d^2 to transmit (before rounding) plus the
+     * receiving cost, and the hops together must span the distance. For k hops,
+     * the sum of d^2 is smallest when the hops are equally long, which gives
+     * k * (E_elec + receiving) + E_amp * distance^2 / k, minimized over every
+     * (real) k of at least distance / maxHop. Since a hop can only get longer,
+     * the bound is also consistent: it never drops by more than the cost of a hop.
+     *
+     * @param distance the distance left to cover (in meters)
+     * @param maxHop   the longest possible hop (in meters)
+     * @return the lower bound on the cost, which is 0 if the distance is 0
+     */
+    public static double getMinRelayCost(double distance, double maxHop) {
+        /* A hop's transmission cost is rounded, which may lower it by up to 0.5 */
+        double perHop = BITS_PER_PACKET * E_elec * 1e6 - 0.5 + getReceivingCost();
+        double perSquare = BITS_PER_PACKET * E_amp * 1e6;
+        if (distance <= 0 || maxHop <= 0 || perHop <= 0) {
+            return 0;
+        }
+
+        double hops = Math.max(distance / maxHop, distance * Math.sqrt(perSquare / perHop));
+        return hops * perHop + perSquare * distance * distance / hops;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof SensorNode sn)) {
@@ -97,19 +200,33 @@ public abstract class SensorNode {
 
     @Override
     public int hashCode() {
-        return this.getName().hashCode();
+        return Integer.hashCode(this.getUuid());
     }
 
     public static void resetCounter() {
-        uuidCounter = 1;
+        uuidCounter.set(1);
     }
 
     public static int getBitsPerPacket() {
         return BITS_PER_PACKET;
     }
 
-    public static void setBitsPerPacket(int bitsPerPacket) {
-        BITS_PER_PACKET = bitsPerPacket;
+    public static synchronized void setBitsPerPacket(int bitsPerPacket) {
+        /* The version changes after the bits, so a thread that sees the new version sees the new bits */
+        if (BITS_PER_PACKET != bitsPerPacket) {
+            BITS_PER_PACKET = bitsPerPacket;
+            costModelVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a number that changes every time the cost of transmitting or receiving
+     * a data packet changes, so networks can tell when their stored costs are stale.
+     *
+     * @return the current version of the cost model
+     */
+    public static int getCostModelVersion() {
+        return costModelVersion.get();
     }
 
     public abstract void resetPackets();
@@ -1,5 +1,7 @@
 package com.grivera.generator.sensors;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a Sensor Node in a com.grivera.generator.Network that has storage space for overflow data packets.
  *
@@ -9,14 +11,24 @@ public class StorageNode extends SensorNode {
 
     private static final double E_store = 100e-9;
 
-    private static int idCounter = 1;
+    private static final AtomicInteger idCounter = new AtomicInteger(1);
     private int id;
     private int capacity;
     private int usedSpace;
 
     public StorageNode(double x, double y, double tr, int capacity) {
-        super(x, y, tr, String.format("SN%02d", idCounter));
-        this.id = idCounter++;
+        this(idCounter.getAndIncrement(), x, y, tr, capacity);
+    }
+
+    private StorageNode(int id, double x, double y, double tr, int capacity) {
+        super(x, y, tr, null);
+        this.id = id;
+        this.setCapacity(capacity);
+    }
+
+    public StorageNode(int uuid, int id, double x, double y, double tr, int capacity) {
+        super(uuid, x, y, tr, null);
+        this.id = id;
         this.setCapacity(capacity);
     }
 
@@ -34,27 +46,37 @@ public class StorageNode extends SensorNode {
     }
 
     public boolean isFull() {
-        return this.usedSpace >= this.capacity;
+        return this.getUsedSpace() >= this.capacity;
     }
 
     public boolean canStore(int deltaPackets) {
-        return this.usedSpace + deltaPackets <= this.capacity;
+        return this.getUsedSpace() + deltaPackets <= this.capacity;
     }
 
     public void storePackets(int packets) {
         if (!this.canStore(packets)) {
             throw new IllegalArgumentException(
                     String.format("%s cannot store %d packets (%d/%d full)",
-                            this.getName(), packets, this.usedSpace, this.capacity
+                            this.getName(), packets, this.getUsedSpace(), this.capacity
                     )
             );
         }
-        this.usedSpace += packets;
+        this.setUsedSpace(this.getUsedSpace() + packets);
+    }
+
+    /**
+     * Updates the number of packets stored, which every packet operation goes through
+     * so a subclass can keep the count somewhere else.
+     *
+     * @param usedSpace the new number of packets stored
+     */
+    protected void setUsedSpace(int usedSpace) {
+        this.usedSpace = usedSpace;
     }
 
     @Override
     public void resetPackets() {
-        this.usedSpace = 0;
+        this.setUsedSpace(0);
     }
 
     @Override
@@ -63,15 +85,20 @@ public class StorageNode extends SensorNode {
     }
 
     public int getSpaceLeft() {
-        return this.capacity - this.usedSpace;
+        return this.capacity - this.getUsedSpace();
     }
 
     public int calculateStorageCost() {
-        double cost = this.usedSpace * BITS_PER_PACKET * E_store;
+        double cost = this.getUsedSpace() * BITS_PER_PACKET * E_store;
         return (int) Math.round(cost * Math.pow(10, 6));
     }
 
+    @Override
+    protected String createName() {
+        return String.format("SN%02d", this.id);
+    }
+
     public static void resetCounter() {
-        idCounter = 1;
+        idCounter.set(1);
     }
 }
@@ -1,12 +1,23 @@
 package com.grivera.generator.sensors;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class TransitionNode extends SensorNode {
-    private static int idCounter = 1;
+    private static final AtomicInteger idCounter = new AtomicInteger(1);
     private int id;
 
     public TransitionNode(double x, double y, double tr) {
-        super(x, y, tr, String.format("TN%02d", idCounter));
-        this.id = idCounter++;
+        this(idCounter.getAndIncrement(), x, y, tr);
+    }
+
+    private TransitionNode(int id, double x, double y, double tr) {
+        super(x, y, tr, null);
+        this.id = id;
+    }
+
+    public TransitionNode(int uuid, int id, double x, double y, double tr) {
+        super(uuid, x, y, tr, null);
+        this.id = id;
     }
 
     @Override
@@ -17,7 +28,12 @@ public class TransitionNode extends SensorNode {
         return this.id;
     }
 
+    @Override
+    protected String createName() {
+        return String.format("TN%02d", this.id);
+    }
+
     public static void resetCounter() {
-        idCounter = 1;
+        idCounter.set(1);
     }
 }
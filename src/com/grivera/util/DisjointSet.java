@@ -0,0 +1,88 @@
+package com.grivera.util;
+
+/**
+ * Represents a union-find structure over the int elements [0, size) with path
+ * halving and union by size.
+ */
+public final class DisjointSet {
+
+    private final int[] parents;
+    private final int[] sizes;
+    private int setCount;
+
+    /**
+     * Creates a structure where every element is in its own set.
+     *
+     * @param size the number of elements
+     */
+    public DisjointSet(int size) {
+        this.parents = new int[size];
+        this.sizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.parents[i] = i;
+            this.sizes[i] = 1;
+        }
+        this.setCount = size;
+    }
+
+    /**
+     * Returns the representative element of the set that contains the element.
+     *
+     * @param element the element
+     * @return the representative of the element's set
+     */
+    public int find(int element) {
+        while (this.parents[element] != element) {
+            this.parents[element] = this.parents[this.parents[element]];
+            element = this.parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets that contain the two elements.
+     *
+     * @param element1 the first element
+     * @param element2 the second element
+     * @return true if and only if the elements were in different sets; otherwise false
+     */
+    public boolean union(int element1, int element2) {
+        int root1 = this.find(element1);
+        int root2 = this.find(element2);
+        if (root1 == root2) {
+            return false;
+        }
+
+        if (this.sizes[root1] < this.sizes[root2]) {
+            int tmp = root1;
+            root1 = root2;
+            root2 = tmp;
+        }
+        this.parents[root2] = root1;
+        this.sizes[root1] += this.sizes[root2];
+        this.setCount--;
+        return true;
+    }
+
+    public boolean connected(int element1, int element2) {
+        return this.find(element1) == this.find(element2);
+    }
+
+    /**
+     * Returns the number of elements in the set that contains the element.
+     *
+     * @param element the element
+     * @return the size of the element's set
+     */
+    public int sizeOf(int element) {
+        return this.sizes[this.find(element)];
+    }
+
+    public int getSetCount() {
+        return this.setCount;
+    }
+
+    public int size() {
+        return this.parents.length;
+    }
+}
@@ -0,0 +1,168 @@
+package com.grivera.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a binary min-heap of int elements in the range [0, capacity) with
+ * int keys that supports decreasing the key of an element already in the heap.
+ *
+ * <p>
+ * </p>
+ *
+ * No objects are allocated after construction, so the heap can be reused
+ * across many searches by calling {@link #clear()}.
+ */
+public final class IndexedIntHeap implements IndexedIntQueue {
+
+    private final int[] heap;
+    private final int[] positions;
+    private final int[] keys;
+    private int size;
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param capacity the number of distinct elements the heap can hold
+     */
+    public IndexedIntHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(int element) {
+        return this.positions[element] >= 0;
+    }
+
+    /**
+     * Inserts the element with the given key, or lowers its key if the element is
+     * already in the heap with a larger key.
+     *
+     * @param element the element to insert or update
+     * @param key     the new key of the element
+     * @return true if and only if the heap changed; otherwise false
+     */
+    @Override
+    public boolean offer(int element, int key) {
+        int position = this.positions[element];
+        if (position < 0) {
+            position = this.size++;
+            this.heap[position] = element;
+            this.positions[element] = position;
+        } else if (key >= this.keys[element]) {
+            return false;
+        }
+        this.keys[element] = key;
+        this.siftUp(position);
+        return true;
+    }
+
+    /**
+     * Removes the element with the smallest key.
+     *
+     * @return the removed element
+     */
+    @Override
+    public int poll() {
+        if (this.size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+
+        int min = this.heap[0];
+        this.positions[min] = -1;
+        this.size--;
+        if (this.size > 0) {
+            int last = this.heap[this.size];
+            this.heap[0] = last;
+            this.positions[last] = 0;
+            this.siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the key of the element with the smallest key without removing it.
+     *
+     * @return the smallest key in the heap
+     */
+    public int peekKey() {
+        if (this.size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return this.keys[this.heap[0]];
+    }
+
+    /**
+     * Returns the last key given to the element.
+     *
+     * @param element the element in the heap
+     * @return the key of the element
+     */
+    @Override
+    public int keyOf(int element) {
+        return this.keys[element];
+    }
+
+    /**
+     * Removes all elements from the heap in time proportional to its size.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    private void siftUp(int position) {
+        int element = this.heap[position];
+        int key = this.keys[element];
+        int parent;
+        while (position > 0) {
+            parent = (position - 1) >>> 1;
+            if (this.keys[this.heap[parent]] <= key) {
+                break;
+            }
+            this.move(this.heap[parent], position);
+            position = parent;
+        }
+        this.move(element, position);
+    }
+
+    private void siftDown(int position) {
+        int element = this.heap[position];
+        int key = this.keys[element];
+        int half = this.size >>> 1;
+        int child;
+        while (position < half) {
+            child = 2 * position + 1;
+            if (child + 1 < this.size && this.keys[this.heap[child + 1]] < this.keys[this.heap[child]]) {
+                child++;
+            }
+            if (key <= this.keys[this.heap[child]]) {
+                break;
+            }
+            this.move(this.heap[child], position);
+            position = child;
+        }
+        this.move(element, position);
+    }
+
+    private void move(int element, int position) {
+        this.heap[position] = element;
+        this.positions[element] = position;
+    }
+}
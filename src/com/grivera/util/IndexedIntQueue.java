@@ -0,0 +1,48 @@
+package com.grivera.util;
+
+/**
+ * Represents a min-priority queue of int elements in the range [0, capacity)
+ * with int keys that supports decreasing the key of an element already in the
+ * queue.
+ *
+ * @see IndexedIntHeap
+ * @see IntBucketQueue
+ */
+public interface IndexedIntQueue {
+
+    boolean isEmpty();
+
+    int size();
+
+    boolean contains(int element);
+
+    /**
+     * Inserts the element with the given key, or lowers its key if the element is
+     * already in the queue with a larger key.
+     *
+     * @param element the element to insert or update
+     * @param key     the new key of the element
+     * @return true if and only if the queue changed; otherwise false
+     */
+    boolean offer(int element, int key);
+
+    /**
+     * Removes an element with the smallest key.
+     *
+     * @return the removed element
+     */
+    int poll();
+
+    /**
+     * Returns the last key given to the element.
+     *
+     * @param element the element in the queue
+     * @return the key of the element
+     */
+    int keyOf(int element);
+
+    /**
+     * Removes all elements from the queue.
+     */
+    void clear();
+}
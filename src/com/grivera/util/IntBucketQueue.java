@@ -0,0 +1,197 @@
+package com.grivera.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a monotone bucket queue (Dial's queue) of int elements in the range
+ * [0, capacity) with non-negative int keys that never exceed the last removed key
+ * by more than a fixed maximum step.
+ *
+ * <p>
+ * </p>
+ *
+ * Each key has its own bucket in a circular array of maxStep + 1 buckets, which
+ * can hold every key in [last removed key, last removed key + maxStep] at once.
+ * Offering an element and lowering its key take constant time, and removing the
+ * smallest element only scans forward over empty buckets, so a Dijkstra search
+ * with integer arc costs of at most maxStep runs in time linear in the number of
+ * arcs plus its largest distance.
+ *
+ * <p>
+ * </p>
+ *
+ * No objects are allocated after construction, so the queue can be reused
+ * across many searches by calling {@link #clear()}.
+ */
+public final class IntBucketQueue implements IndexedIntQueue {
+
+    private final int maxStep;
+
+    /* The first element of each bucket, linked to the rest through next and previous */
+    private final int[] heads;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] buckets;
+    private final int[] keys;
+    private int size;
+
+    /* The last removed key, below which no key may be offered */
+    private int minKey;
+    private int minBucket;
+    private boolean started;
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param capacity the number of distinct elements the queue can hold
+     * @param maxStep  the most that an offered key can exceed the last removed key by
+     * @throws IllegalArgumentException if maxStep is negative or too large for an array of buckets
+     */
+    public IntBucketQueue(int capacity, int maxStep) {
+        if (maxStep < 0 || maxStep == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Invalid maximum step %d", maxStep));
+        }
+        this.maxStep = maxStep;
+        this.heads = new int[maxStep + 1];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.buckets = new int[capacity];
+        this.keys = new int[capacity];
+        Arrays.fill(this.heads, -1);
+        Arrays.fill(this.buckets, -1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(int element) {
+        return this.buckets[element] >= 0;
+    }
+
+    /**
+     * Inserts the element with the given key, or lowers its key if the element is
+     * already in the queue with a larger key.
+     *
+     * <p>
+     * </p>
+     *
+     * The first key offered after construction (or {@link #clear()}) may be any
+     * non-negative key, and the rest must be within maxStep of the last removed key.
+     *
+     * @param element the element to insert or update
+     * @param key     the new key of the element
+     * @return true if and only if the queue changed; otherwise false
+     * @throws IllegalArgumentException if the key is outside the keys the queue can hold
+     */
+    @Override
+    public boolean offer(int element, int key) {
+        if (!this.started) {
+            if (key < 0) {
+                throw new IllegalArgumentException(String.format("Invalid key %d", key));
+            }
+            this.minKey = key;
+            this.minBucket = key % this.heads.length;
+            this.started = true;
+        } else if (key < this.minKey || key - this.minKey > this.maxStep) {
+            throw new IllegalArgumentException(String.format("Key %d is not within %d of %d",
+                    key, this.maxStep, this.minKey));
+        }
+
+        if (this.buckets[element] >= 0) {
+            if (key >= this.keys[element]) {
+                return false;
+            }
+            this.unlink(element);
+        } else {
+            this.size++;
+        }
+        this.keys[element] = key;
+        this.link(element, key % this.heads.length);
+        return true;
+    }
+
+    /**
+     * Removes an element with the smallest key.
+     *
+     * @return the removed element
+     */
+    @Override
+    public int poll() {
+        if (this.size == 0) {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        int bucket = this.minBucket;
+        while (this.heads[bucket] < 0) {
+            bucket = bucket + 1 == this.heads.length ? 0 : bucket + 1;
+        }
+
+        int min = this.heads[bucket];
+        this.unlink(min);
+        this.size--;
+        this.minKey = this.keys[min];
+        this.minBucket = bucket;
+        return min;
+    }
+
+    /**
+     * Returns the last key given to the element.
+     *
+     * @param element the element in the queue
+     * @return the key of the element
+     */
+    @Override
+    public int keyOf(int element) {
+        return this.keys[element];
+    }
+
+    /**
+     * Removes all elements from the queue in time proportional to the number of
+     * buckets they span.
+     */
+    @Override
+    public void clear() {
+        int bucket = this.minBucket;
+        while (this.size > 0) {
+            while (this.heads[bucket] >= 0) {
+                this.unlink(this.heads[bucket]);
+                this.size--;
+            }
+            bucket = bucket + 1 == this.heads.length ? 0 : bucket + 1;
+        }
+        this.started = false;
+    }
+
+    private void link(int element, int bucket) {
+        int head = this.heads[bucket];
+        this.next[element] = head;
+        this.previous[element] = -1;
+        if (head >= 0) {
+            this.previous[head] = element;
+        }
+        this.heads[bucket] = element;
+        this.buckets[element] = bucket;
+    }
+
+    private void unlink(int element) {
+        int before = this.previous[element], after = this.next[element];
+        if (before >= 0) {
+            this.next[before] = after;
+        } else {
+            this.heads[this.buckets[element]] = after;
+        }
+        if (after >= 0) {
+            this.previous[after] = before;
+        }
+        this.buckets[element] = -1;
+    }
+}
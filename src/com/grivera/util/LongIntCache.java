@@ -0,0 +1,201 @@
+package com.grivera.util;
+
+import java.util.Arrays;
+
+/**
+ * Represents a cache from primitive long keys to primitive int values, stored in
+ * an open-addressing hash table with linear probing (no boxing and no entry objects).
+ *
+ * <p>
+ * </p>
+ *
+ * The cache is either unbounded or holds at most a maximum number of entries,
+ * evicting the oldest entry (first in, first out) to make room for a new one.
+ */
+public class LongIntCache {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final int maxSize;
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int shift;
+    private int size;
+
+    /* Insertion order of the keys, only kept when the cache is bounded */
+    private final long[] order;
+    private int oldest;
+
+    /**
+     * Creates an unbounded cache.
+     */
+    public LongIntCache() {
+        this(0);
+    }
+
+    /**
+     * Creates a cache that holds at most the given number of entries.
+     *
+     * @param maxSize the maximum number of entries, or 0 for an unbounded cache
+     */
+    public LongIntCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(String.format("Invalid cache size %d", maxSize));
+        }
+        this.maxSize = maxSize;
+        this.order = maxSize > 0 ? new long[maxSize] : null;
+
+        /* A bounded cache never grows, so it starts at its final capacity */
+        this.allocate(maxSize > 0 ? capacityFor(maxSize) : MIN_CAPACITY);
+    }
+
+    /**
+     * Packs two ints into one key, e.g. the UUIDs of the two ends of a path.
+     *
+     * @param high the int stored in the upper 32 bits
+     * @param low  the int stored in the lower 32 bits
+     * @return the packed key
+     */
+    public static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if the key is not in the cache
+     * @return the value of the key, or the default value
+     */
+    public int getOrDefault(long key, int defaultValue) {
+        int slot = this.find(key);
+        return slot < 0 ? defaultValue : this.values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return this.find(key) >= 0;
+    }
+
+    /**
+     * Stores the value of a key, evicting the oldest entry if a bounded cache is full.
+     *
+     * @param key   the key
+     * @param value the value of the key
+     */
+    public void put(long key, int value) {
+        int slot = this.find(key);
+        if (slot >= 0) {
+            this.values[slot] = value;
+            return;
+        }
+
+        if (this.maxSize > 0) {
+            if (this.size == this.maxSize) {
+                /* The new key takes the place of the oldest one in the insertion order */
+                this.removeAt(this.find(this.order[this.oldest]));
+                this.order[this.oldest] = key;
+                this.oldest = (this.oldest + 1) % this.maxSize;
+            } else {
+                this.order[(this.oldest + this.size) % this.maxSize] = key;
+            }
+        } else if (2 * (this.size + 1) > this.keys.length) {
+            this.rehash(this.keys.length * 2);
+        }
+        this.insert(key, value);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public void clear() {
+        Arrays.fill(this.used, false);
+        this.size = 0;
+        this.oldest = 0;
+    }
+
+    private int find(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = this.slotOf(key); this.used[slot]; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long key, int value) {
+        int mask = this.keys.length - 1;
+        int slot = this.slotOf(key);
+        while (this.used[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.used[slot] = true;
+        this.size++;
+    }
+
+    /* Shifts later entries of the probe sequence back, so no tombstones are needed */
+    private void removeAt(int slot) {
+        int mask = this.keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; this.used[next]; next = (next + 1) & mask) {
+            int home = this.slotOf(this.keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.keys[hole] = this.keys[next];
+                this.values[hole] = this.values[next];
+                hole = next;
+            }
+        }
+        this.used[hole] = false;
+        this.size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+
+        this.allocate(capacity);
+        this.size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                this.insert(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int slotOf(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> this.shift);
+    }
+
+    /* Keeps the table at most half full */
+    private static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2L * size && capacity < (1 << 30)) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,80 @@
+package com.grivera.generator.flow;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the min-cost flow solver on problems small enough to check by hand.
+ */
+class MinCostFlowTest {
+
+    /**
+     * Creates a problem whose prices drop far in the first refinement, although
+     * 1 unit can go through the negative arc 0 -> 1 -> 2 (-363) and the other 3
+     * through 0 -> 2 (837).
+     */
+    private static MinCostFlow deepPriceDrop() {
+        MinCostFlow flow = new MinCostFlow(3);
+        flow.addArc(0, 2, 5, 279);
+        flow.addArc(0, 1, 3, -821);
+        flow.addArc(1, 2, 1, 458);
+        flow.setSupply(0, 4);
+        flow.setSupply(2, -4);
+        return flow;
+    }
+
+    @Test
+    void solvesFeasibleProblemWhosePricesDropFar() {
+        MinCostFlow flow = deepPriceDrop();
+        assertEquals(474, flow.solve());
+        assertEquals(3, flow.getFlow(0));
+        assertEquals(1, flow.getFlow(1));
+        assertEquals(1, flow.getFlow(2));
+    }
+
+    @Test
+    void resolvesFeasibleProblemWhosePricesDropFar() {
+        MinCostFlow flow = deepPriceDrop();
+        flow.setSupply(0, 1);
+        flow.setSupply(2, -1);
+        assertEquals(-363, flow.solve());
+
+        flow.setSupply(0, 4);
+        flow.setSupply(2, -4);
+        assertEquals(474, flow.resolve());
+    }
+
+    @Test
+    void resolvesAfterAnInfeasibleChange() {
+        MinCostFlow flow = deepPriceDrop();
+        flow.solve();
+
+        flow.setSupply(0, 9);
+        flow.setSupply(2, -9);
+        assertThrows(IllegalStateException.class, flow::resolve);
+
+        flow.setCapacity(0, 8);
+        assertEquals(8 * 279 - 363, flow.resolve());
+    }
+
+    @Test
+    void rejectsSuppliesThatExceedTheCapacities() {
+        MinCostFlow flow = new MinCostFlow(3);
+        flow.addArc(0, 1, 2, 10);
+        flow.addArc(1, 2, 5, 10);
+        flow.setSupply(0, 3);
+        flow.setSupply(2, -3);
+        assertThrows(IllegalStateException.class, flow::solve);
+    }
+
+    @Test
+    void rejectsDemandsThatCannotBeReached() {
+        MinCostFlow flow = new MinCostFlow(3);
+        flow.addArc(0, 1, 5, 10);
+        flow.setSupply(0, 2);
+        flow.setSupply(2, -2);
+        assertThrows(IllegalStateException.class, flow::solve);
+    }
+}